@@ -1,27 +1,150 @@
 package com.penta.config;
 
+import com.github.benmanes.caffeine.cache.CacheLoader;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.LoadingCache;
+import com.penta.service.UggDataService;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.ObjectProvider;
 import org.springframework.cache.CacheManager;
 import org.springframework.cache.annotation.EnableCaching;
-import org.springframework.cache.concurrent.ConcurrentMapCache;
+import org.springframework.cache.caffeine.CaffeineCache;
 import org.springframework.cache.support.SimpleCacheManager;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.core.env.Environment;
 
+import java.time.Duration;
 import java.util.Arrays;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
 
+/**
+ * Bounded u.gg caches. Each cache has its own maximum size and expire-after-write TTL
+ * (cache.<name>.max-size / cache.<name>.ttl-hours) and records statistics, which actuator
+ * publishes as cache.gets, cache.puts, cache.evictions and cache.load metrics. cache.load only
+ * covers background refreshes; first loads run in UggDataService and are timed as ugg.scrape.miss.
+ *
+ * Entries older than cache.<name>.refresh-hours are still served while a background refresh
+ * re-scrapes them on a small bounded pool (cache.refresh.threads / cache.refresh.queue-capacity).
+ * Caffeine keeps at most one refresh in flight per key. A failed or rejected refresh completes
+ * exceptionally, so Caffeine keeps the old value without touching its write time: the next read
+ * tries again, and the entry still expires a TTL after its last successful scrape. Requests
+ * block on u.gg only for keys that have never been scraped or were not refreshed for a whole TTL.
+ */
 @Configuration
 @EnableCaching
 public class CacheConfig {
     
+    private static final Logger logger = LoggerFactory.getLogger(CacheConfig.class);
+    
+    private ThreadPoolExecutor refreshExecutor;
+    
     @Bean
-    public CacheManager cacheManager() {
+    public CacheManager cacheManager(Environment environment, ObjectProvider<UggDataService> uggDataService) {
+        // Not a bean: an Executor bean would replace Boot's default @Async executor
+        int threads = environment.getProperty("cache.refresh.threads", Integer.class, 2);
+        int queueCapacity = environment.getProperty("cache.refresh.queue-capacity", Integer.class, 100);
+        AtomicInteger threadCount = new AtomicInteger();
+        refreshExecutor = new ThreadPoolExecutor(threads, threads, 0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(queueCapacity), runnable -> {
+                    Thread thread = new Thread(runnable, "ugg-refresh-" + threadCount.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                });
+    
         SimpleCacheManager cacheManager = new SimpleCacheManager();
         cacheManager.setCaches(Arrays.asList(
-            new ConcurrentMapCache("goodMatchups"),
-            new ConcurrentMapCache("synergy"),
-            new ConcurrentMapCache("tierList"),
-            new ConcurrentMapCache("championStats")
+            // Per-champion pages: bounded by the champion pool plus some room for misspelled names
+            caffeineCache(environment, uggDataService, "goodMatchups", 400, 24, 6),
+            caffeineCache(environment, uggDataService, "synergy", 400, 24, 6),
+            // Per-role pages: a handful of keys, refreshed several times per patch
+            caffeineCache(environment, uggDataService, "tierList", 20, 12, 3),
+            caffeineCache(environment, uggDataService, "championStats", 20, 12, 3)
         ));
         return cacheManager;
     }
+    
+    @PreDestroy
+    public void shutdownRefreshExecutor() {
+        if (refreshExecutor != null) {
+            refreshExecutor.shutdownNow();
+        }
+    }
+    
+    private CaffeineCache caffeineCache(Environment environment, ObjectProvider<UggDataService> uggDataService,
+                                        String name, long defaultMaxSize, long defaultTtlHours, long defaultRefreshHours) {
+        long maxSize = environment.getProperty("cache." + name + ".max-size", Long.class, defaultMaxSize);
+        long ttlHours = environment.getProperty("cache." + name + ".ttl-hours", Long.class, defaultTtlHours);
+        long refreshHours = environment.getProperty("cache." + name + ".refresh-hours", Long.class, defaultRefreshHours);
+        LoadingCache<Object, Object> cache = Caffeine.newBuilder()
+                .maximumSize(maxSize)
+                .expireAfterWrite(Duration.ofHours(ttlHours))
+                .refreshAfterWrite(Duration.ofHours(refreshHours))
+                .recordStats()
+                .build(new UggRefresher(name, uggDataService));
+        return new StaleWhileRevalidateCache(name, cache);
+    }
+    
+    /**
+     * Spring's CaffeineCache reads a LoadingCache through get(), which would block on the loader.
+     * Reading with getIfPresent() returns the current value and only schedules the refresh;
+     * misses still fall through to the @Cacheable method.
+     */
+    private static final class StaleWhileRevalidateCache extends CaffeineCache {
+    
+        StaleWhileRevalidateCache(String name, LoadingCache<Object, Object> cache) {
+            super(name, cache);
+        }
+    
+        @Override
+        protected Object lookup(Object key) {
+            return getNativeCache().getIfPresent(key);
+        }
+    }
+    
+    /**
+     * Re-scrapes one cache entry on the refresh pool
+     */
+    private final class UggRefresher implements CacheLoader<Object, Object> {
+    
+        private final String cacheName;
+        private final ObjectProvider<UggDataService> uggDataService;
+    
+        UggRefresher(String cacheName, ObjectProvider<UggDataService> uggDataService) {
+            this.cacheName = cacheName;
+            this.uggDataService = uggDataService;
+        }
+    
+        @Override
+        public Object load(Object key) {
+            return uggDataService.getObject().fetchForCache(cacheName, key.toString()).orElse(null);
+        }
+    
+        @Override
+        public CompletableFuture<Object> asyncReload(Object key, Object oldValue, Executor executor) {
+            try {
+                return CompletableFuture.supplyAsync(() -> {
+                    Object value = load(key);
+                    if (value == null) {
+                        // Returning oldValue would count as a write and push back expiry
+                        logger.debug("Refresh of {} for {} failed, keeping the cached value", cacheName, key);
+                        throw new IllegalStateException("Refresh of " + cacheName + " for " + key + " failed");
+                    }
+                    return value;
+                }, refreshExecutor);
+            } catch (RejectedExecutionException e) {
+                // Pool is saturated; the next read tries again
+                logger.debug("Refresh of {} for {} rejected, keeping the cached value", cacheName, key);
+                return CompletableFuture.failedFuture(e);
+            }
+        }
+    }
 }
@@ -1,9 +1,7 @@
 package com.penta.config;
 
 import org.springframework.beans.factory.annotation.Value;
-import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
-import org.springframework.web.reactive.function.client.WebClient;
 
 @Configuration
 public class RiotApiConfig {
@@ -16,18 +14,19 @@ public class RiotApiConfig {
     
     @Value("${riot.api.timeout}")
     private int timeout;
+    
+    @Value("${riot.api.pool.max-connections:50}")
+    private int poolMaxConnections;
+    
+    @Value("${riot.api.pool.max-idle-time-ms:30000}")
+    private long poolMaxIdleTimeMs;
+    
+    @Value("${riot.api.pool.max-life-time-ms:300000}")
+    private long poolMaxLifeTimeMs;
 
     @Value("${ddragon.version}")
     private String ddragonVersion;
     
-    @Bean
-    public WebClient riotWebClient() {
-        return WebClient.builder()
-                .baseUrl(riotApiBaseUrl)
-                .defaultHeader("X-Riot-Token", riotApiKey)
-                .build();
-    }
-    
     public String getRiotApiKey() {
         return riotApiKey;
     }
@@ -40,7 +39,27 @@ public class RiotApiConfig {
         return timeout;
     }
     
+    public int getPoolMaxConnections() {
+        return poolMaxConnections;
+    }
+    
+    public long getPoolMaxIdleTimeMs() {
+        return poolMaxIdleTimeMs;
+    }
+    
+    public long getPoolMaxLifeTimeMs() {
+        return poolMaxLifeTimeMs;
+    }
+    
     public String getDdragonVersion() {
         return ddragonVersion;
     }
+    
+    /**
+     * Current patch in the "major.minor" form used by the stats tables (15.23.1 -> 15.23)
+     */
+    public String getCurrentPatch() {
+        String[] parts = ddragonVersion.split("\\.");
+        return parts.length >= 2 ? parts[0] + "." + parts[1] : ddragonVersion;
+    }
 }
@@ -0,0 +1,151 @@
+package com.penta.config;
+
+import com.penta.service.RiotRateLimiter;
+import io.netty.channel.ChannelOption;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.client.reactive.ReactorClientHttpConnector;
+import org.springframework.stereotype.Component;
+import org.springframework.web.reactive.function.client.WebClient;
+import reactor.netty.http.client.HttpClient;
+import reactor.netty.resources.ConnectionProvider;
+
+import java.net.URI;
+import java.time.Duration;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Long-lived, connection-pooled WebClients for the Riot API.
+ *
+ * One client is kept per platform host (na1, euw1, ...) and per routing host
+ * (americas, europe, asia, sea). All of them share a single reactor-netty
+ * connection pool, which keeps separate keep-alive connections per remote host.
+ * Riot clients go through RiotRateLimiter; the Data Dragon client does not.
+ */
+@Component
+public class RiotWebClientRegistry {
+
+    private static final String RIOT_HOST_FORMAT = "https://%s.api.riotgames.com";
+    private static final String DDRAGON_BASE_URL = "https://ddragon.leagueoflegends.com";
+
+    // Platform routing values grouped by the regional cluster that serves match-v5
+    private static final Map<String, String> PLATFORM_TO_ROUTING = Map.ofEntries(
+            Map.entry("na1", "americas"),
+            Map.entry("br1", "americas"),
+            Map.entry("la1", "americas"),
+            Map.entry("la2", "americas"),
+            Map.entry("euw1", "europe"),
+            Map.entry("eun1", "europe"),
+            Map.entry("tr1", "europe"),
+            Map.entry("ru", "europe"),
+            Map.entry("me1", "europe"),
+            Map.entry("kr", "asia"),
+            Map.entry("jp1", "asia"),
+            Map.entry("oc1", "sea"),
+            Map.entry("ph2", "sea"),
+            Map.entry("sg2", "sea"),
+            Map.entry("th2", "sea"),
+            Map.entry("tw2", "sea"),
+            Map.entry("vn2", "sea")
+    );
+
+    private final RiotApiConfig riotApiConfig;
+    private final RiotRateLimiter rateLimiter;
+    private final ConnectionProvider connectionProvider;
+    private final ReactorClientHttpConnector connector;
+    private final Map<String, WebClient> clientsByHost = new ConcurrentHashMap<>();
+    private final WebClient ddragonClient;
+
+    @Autowired
+    public RiotWebClientRegistry(RiotApiConfig riotApiConfig, RiotRateLimiter rateLimiter) {
+        this.riotApiConfig = riotApiConfig;
+        this.rateLimiter = rateLimiter;
+        int timeout = riotApiConfig.getTimeout();
+
+        this.connectionProvider = ConnectionProvider.builder("riot-api")
+                .maxConnections(riotApiConfig.getPoolMaxConnections())
+                .pendingAcquireTimeout(Duration.ofMillis(timeout))
+                .maxIdleTime(Duration.ofMillis(riotApiConfig.getPoolMaxIdleTimeMs()))
+                .maxLifeTime(Duration.ofMillis(riotApiConfig.getPoolMaxLifeTimeMs()))
+                .evictInBackground(Duration.ofSeconds(30))
+                .build();
+
+        HttpClient httpClient = HttpClient.create(connectionProvider)
+                .keepAlive(true)
+                .option(ChannelOption.SO_KEEPALIVE, true)
+                .option(ChannelOption.CONNECT_TIMEOUT_MILLIS, timeout)
+                // Per-request read timeout; a channel handler would also fire on idle pooled connections
+                .responseTimeout(Duration.ofMillis(timeout));
+
+        this.connector = new ReactorClientHttpConnector(httpClient);
+        this.ddragonClient = WebClient.builder()
+                .clientConnector(connector)
+                .baseUrl(DDRAGON_BASE_URL)
+                .build();
+    }
+
+    /**
+     * Client for a platform host such as na1 or euw1 (summoner-v4, champion-mastery-v4, spectator-v4)
+     */
+    public WebClient platform(String platform) {
+        return forHost(normalizePlatform(platform));
+    }
+
+    /**
+     * Client for a routing host such as americas or europe (account-v1, match-v5)
+     */
+    public WebClient routing(String routing) {
+        return forHost(routing.toLowerCase(Locale.ROOT));
+    }
+
+    /**
+     * Client for the routing host that serves match-v5 data for the given platform
+     */
+    public WebClient routingForPlatform(String platform) {
+        return routing(routingValueFor(platform));
+    }
+
+    /**
+     * Client for the routing host configured in riot.api.base-url (used for account-v1)
+     */
+    public WebClient defaultRouting() {
+        String host = URI.create(riotApiConfig.getRiotApiBaseUrl()).getHost();
+        return routing(host.substring(0, host.indexOf('.')));
+    }
+
+    /**
+     * Client for Data Dragon static data
+     */
+    public WebClient ddragon() {
+        return ddragonClient;
+    }
+
+    /**
+     * Map a platform value (na1, euw1, ...) to its regional routing value
+     */
+    public String routingValueFor(String platform) {
+        return PLATFORM_TO_ROUTING.getOrDefault(normalizePlatform(platform), "americas");
+    }
+
+    private WebClient forHost(String host) {
+        return clientsByHost.computeIfAbsent(host, h -> WebClient.builder()
+                .clientConnector(connector)
+                .baseUrl(String.format(RIOT_HOST_FORMAT, h))
+                .defaultHeader("X-Riot-Token", riotApiConfig.getRiotApiKey())
+                .filter(rateLimiter.filter())
+                .build());
+    }
+
+    private String normalizePlatform(String platform) {
+        String normalized = platform.toLowerCase(Locale.ROOT);
+        // The frontend uses "eune1" while Riot's host is "eun1"
+        return normalized.equals("eune1") ? "eun1" : normalized;
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        connectionProvider.disposeLater().block(Duration.ofSeconds(5));
+    }
+}
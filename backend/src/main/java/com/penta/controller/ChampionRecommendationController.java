@@ -1,7 +1,11 @@
 package com.penta.controller;
 
 import com.penta.dto.ChampionRecommendationDto;
+import com.penta.dto.CompositionSearchResultDto;
+import com.penta.dto.LobbyMemberDto;
+import com.penta.dto.LobbyRecommendationDto;
 import com.penta.service.ChampionRecommendationService;
+import com.penta.service.CompositionSearchService;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
@@ -16,6 +20,9 @@ public class ChampionRecommendationController {
     @Autowired
     private ChampionRecommendationService recommendationService;
     
+    @Autowired
+    private CompositionSearchService compositionSearchService;
+    
     /**
      * Get champion recommendations for a player
      */
@@ -64,6 +71,60 @@ public class ChampionRecommendationController {
         }
     }
     
+    /**
+     * Get champion recommendations for every player in a lobby (up to 10) in one call
+     */
+    @PostMapping("/lobby")
+    public ResponseEntity<List<LobbyRecommendationDto>> getLobbyRecommendations(
+            @RequestBody LobbyRecommendationRequest request) {
+        
+        if (request.getPlayers() == null || request.getPlayers().isEmpty()
+                || request.getPlayers().size() > ChampionRecommendationService.MAX_LOBBY_SIZE) {
+            return ResponseEntity.badRequest().build();
+        }
+        
+        try {
+            List<LobbyRecommendationDto> recommendations = recommendationService.getLobbyRecommendations(
+                    request.getRegion(),
+                    request.getPlayers(),
+                    request.getTeamChampions() != null ? request.getTeamChampions() : List.of(),
+                    request.getOpponentChampions() != null ? request.getOpponentChampions() : List.of()
+            );
+            
+            return ResponseEntity.ok(recommendations);
+        } catch (Exception e) {
+            return ResponseEntity.internalServerError().build();
+        }
+    }
+    
+    /**
+     * Find the best completions of the open slots of a draft
+     */
+    @PostMapping("/composition")
+    public ResponseEntity<CompositionSearchResultDto> searchCompositions(
+            @RequestBody CompositionSearchRequest request) {
+        
+        if (request.getOpenSlots() == null || request.getOpenSlots().isEmpty()
+                || request.getOpenSlots().size() > CompositionSearchService.MAX_OPEN_SLOTS) {
+            return ResponseEntity.badRequest().build();
+        }
+        
+        try {
+            CompositionSearchResultDto result = compositionSearchService.search(
+                    request.getRegion(),
+                    request.getOpenSlots(),
+                    request.getAllyChampions() != null ? request.getAllyChampions() : List.of(),
+                    request.getEnemyChampions() != null ? request.getEnemyChampions() : List.of(),
+                    request.getBannedChampions() != null ? request.getBannedChampions() : List.of(),
+                    request.getTopN() != null ? request.getTopN() : 5
+            );
+            
+            return ResponseEntity.ok(result);
+        } catch (Exception e) {
+            return ResponseEntity.internalServerError().build();
+        }
+    }
+    
     /**
      * Get champion recommendations for counter-picking
      */
@@ -71,12 +132,18 @@ public class ChampionRecommendationController {
     public ResponseEntity<List<ChampionRecommendationDto>> getCounterRecommendations(
             @PathVariable String championName,
             @RequestParam String region,
+            @RequestParam(required = false) String summonerName,
             @RequestParam(required = false) String preferredRole) {
         
         try {
-            // This would implement counter-pick logic
-            // For now, returning empty list
-            return ResponseEntity.ok(List.of());
+            List<ChampionRecommendationDto> recommendations = recommendationService.getCounterRecommendations(
+                    championName,
+                    region,
+                    summonerName,
+                    preferredRole != null ? preferredRole : "MID"
+            );
+            
+            return ResponseEntity.ok(recommendations);
         } catch (Exception e) {
             return ResponseEntity.internalServerError().build();
         }
@@ -108,4 +175,58 @@ public class ChampionRecommendationController {
         public String getPreferredRole() { return preferredRole; }
         public void setPreferredRole(String preferredRole) { this.preferredRole = preferredRole; }
     }
-}
+    
+    /**
+     * Request DTO for lobby recommendations
+     */
+    public static class LobbyRecommendationRequest {
+        private String region;
+        private List<LobbyMemberDto> players;
+        private List<String> teamChampions;
+        private List<String> opponentChampions;
+        
+        // Getters and setters
+        public String getRegion() { return region; }
+        public void setRegion(String region) { this.region = region; }
+        
+        public List<LobbyMemberDto> getPlayers() { return players; }
+        public void setPlayers(List<LobbyMemberDto> players) { this.players = players; }
+        
+        public List<String> getTeamChampions() { return teamChampions; }
+        public void setTeamChampions(List<String> teamChampions) { this.teamChampions = teamChampions; }
+        
+        public List<String> getOpponentChampions() { return opponentChampions; }
+        public void setOpponentChampions(List<String> opponentChampions) { this.opponentChampions = opponentChampions; }
+    }
+    
+    /**
+     * Request DTO for composition search; each open slot has a role and optionally the player filling it
+     */
+    public static class CompositionSearchRequest {
+        private String region;
+        private List<LobbyMemberDto> openSlots;
+        private List<String> allyChampions;
+        private List<String> enemyChampions;
+        private List<String> bannedChampions;
+        private Integer topN;
+        
+        // Getters and setters
+        public String getRegion() { return region; }
+        public void setRegion(String region) { this.region = region; }
+        
+        public List<LobbyMemberDto> getOpenSlots() { return openSlots; }
+        public void setOpenSlots(List<LobbyMemberDto> openSlots) { this.openSlots = openSlots; }
+        
+        public List<String> getAllyChampions() { return allyChampions; }
+        public void setAllyChampions(List<String> allyChampions) { this.allyChampions = allyChampions; }
+        
+        public List<String> getEnemyChampions() { return enemyChampions; }
+        public void setEnemyChampions(List<String> enemyChampions) { this.enemyChampions = enemyChampions; }
+        
+        public List<String> getBannedChampions() { return bannedChampions; }
+        public void setBannedChampions(List<String> bannedChampions) { this.bannedChampions = bannedChampions; }
+        
+        public Integer getTopN() { return topN; }
+        public void setTopN(Integer topN) { this.topN = topN; }
+    }
+}
\ No newline at end of file
@@ -4,15 +4,17 @@ import java.time.LocalDateTime;
 import java.util.HashMap;
 import java.util.Map;
 import java.util.Optional;
+import com.penta.dto.UggPrefetchStatusDto;
 import com.penta.model.Player;
 import com.penta.repository.PlayerRepository;
 import com.penta.service.DataCollectionService;
 import com.penta.service.PlayerCleanupService;
+import com.penta.service.UggPrefetchService;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
-import com.penta.dto.SummonerProfileDto;
-import com.penta.service.RiotApiService;
+import com.penta.service.ReactiveRiotApiService;
+import reactor.core.publisher.Mono;
 import java.util.List;
 
 @RestController
@@ -24,7 +26,7 @@ public class DataCollectionController {
     private DataCollectionService dataCollectionService;
 
     @Autowired
-    private RiotApiService riotApiService;
+    private ReactiveRiotApiService reactiveRiotApiService;
     
     @Autowired
     private PlayerRepository playerRepository;
@@ -32,6 +34,9 @@ public class DataCollectionController {
     @Autowired
     private PlayerCleanupService playerCleanupService;
     
+    @Autowired
+    private UggPrefetchService uggPrefetchService;
+    
     /**
      * Initialize champion data from Riot API
      */
@@ -100,8 +105,13 @@ public class DataCollectionController {
     @PostMapping("/statistics/update")
     public ResponseEntity<String> updateChampionStatistics(
             @RequestParam String patch,
-            @RequestParam String rank) {
+            @RequestParam String rank,
+            @RequestParam(defaultValue = "false") boolean rebuild) {
         try {
+            if (rebuild) {
+                int matches = dataCollectionService.rebuildChampionStatistics(patch);
+                return ResponseEntity.ok("Champion statistics rebuilt from " + matches + " matches");
+            }
             dataCollectionService.updateChampionStatistics(patch, rank);
             return ResponseEntity.ok("Champion statistics updated successfully");
         } catch (Exception e) {
@@ -122,11 +132,19 @@ public class DataCollectionController {
         }
     }
 
+    /**
+     * Get u.gg cache warm-up progress
+     */
+    @GetMapping("/ugg/prefetch")
+    public ResponseEntity<UggPrefetchStatusDto> getUggPrefetchStatus() {
+        return ResponseEntity.ok(uggPrefetchService.status());
+    }
+
     /**
      * Get summoner profile - auto-collects data if needed
      */
     @GetMapping("/player/profile")
-    public ResponseEntity<?> getSummonerProfile(
+    public Mono<ResponseEntity<?>> getSummonerProfile(
             @RequestParam String summonerName,
             @RequestParam String region) {
         try {
@@ -140,7 +158,7 @@ public class DataCollectionController {
                 Map<String, String> response = new HashMap<>();
                 response.put("status", "collecting");
                 response.put("message", "Player data is being collected. This may take a few moments.");
-                return ResponseEntity.accepted().body(response);
+                return Mono.<ResponseEntity<?>>just(ResponseEntity.accepted().body(response));
             }
             
             Player player = playerOpt.get();
@@ -152,13 +170,14 @@ public class DataCollectionController {
                 dataCollectionService.collectPlayerData(summonerName, region, 20); 
             }
             
-            // Return existing profile data
-            Optional<SummonerProfileDto> profileOpt = riotApiService.getSummonerProfile(summonerName, region);
-            return profileOpt.map(ResponseEntity::ok)
-                            .orElseGet(() -> ResponseEntity.notFound().build());
+            // Return existing profile data without holding the request thread during the Riot call
+            return reactiveRiotApiService.getSummonerProfile(summonerName, region)
+                    .<ResponseEntity<?>>map(ResponseEntity::ok)
+                    .defaultIfEmpty(ResponseEntity.notFound().build())
+                    .onErrorResume(e -> Mono.just(ResponseEntity.status(500).body(Map.of("error", e.getMessage()))));
             
         } catch (Exception e) {
-            return ResponseEntity.status(500).body(Map.of("error", e.getMessage()));
+            return Mono.<ResponseEntity<?>>just(ResponseEntity.status(500).body(Map.of("error", e.getMessage())));
         }
     }
         
@@ -0,0 +1,90 @@
+package com.penta.controller;
+
+import com.penta.dto.ChampionRecommendationDto;
+import com.penta.dto.DraftEventDto;
+import com.penta.service.DraftSessionService;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Live draft recommendations: open a session, post picks and bans as they happen and
+ * follow the updated top picks over Server-Sent Events
+ */
+@RestController
+@RequestMapping("/recommendations/draft")
+@CrossOrigin(origins = "http://localhost:5173") // Allow frontend to access
+public class DraftSessionController {
+    
+    @Autowired
+    private DraftSessionService draftSessionService;
+    
+    /**
+     * Open a draft session for a player
+     */
+    @PostMapping
+    public ResponseEntity<Map<String, String>> createSession(
+            @RequestParam String summonerName,
+            @RequestParam String region,
+            @RequestParam(required = false) String preferredRole) {
+        
+        try {
+            return draftSessionService.create(summonerName, region, preferredRole != null ? preferredRole : "MID")
+                    .map(sessionId -> ResponseEntity.ok(Map.of("sessionId", sessionId)))
+                    .orElse(ResponseEntity.notFound().build());
+        } catch (Exception e) {
+            return ResponseEntity.internalServerError().build();
+        }
+    }
+    
+    /**
+     * Stream recommendation updates for a session
+     */
+    @GetMapping(value = "/{sessionId}/stream", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public ResponseEntity<SseEmitter> stream(@PathVariable String sessionId) {
+        return draftSessionService.subscribe(sessionId)
+                .map(ResponseEntity::ok)
+                .orElse(ResponseEntity.notFound().build());
+    }
+    
+    /**
+     * Current recommendations for a session
+     */
+    @GetMapping("/{sessionId}")
+    public ResponseEntity<List<ChampionRecommendationDto>> getRecommendations(@PathVariable String sessionId) {
+        return draftSessionService.current(sessionId)
+                .map(ResponseEntity::ok)
+                .orElse(ResponseEntity.notFound().build());
+    }
+    
+    /**
+     * Apply a pick or ban; subscribers receive the updated recommendations, which are also returned
+     */
+    @PostMapping("/{sessionId}/events")
+    public ResponseEntity<List<ChampionRecommendationDto>> applyEvent(
+            @PathVariable String sessionId,
+            @RequestBody DraftEventDto event) {
+        
+        try {
+            return draftSessionService.apply(sessionId, event)
+                    .map(ResponseEntity::ok)
+                    .orElse(ResponseEntity.notFound().build());
+        } catch (Exception e) {
+            return ResponseEntity.internalServerError().build();
+        }
+    }
+    
+    /**
+     * Close a session and its streams
+     */
+    @DeleteMapping("/{sessionId}")
+    public ResponseEntity<Void> closeSession(@PathVariable String sessionId) {
+        draftSessionService.close(sessionId);
+        return ResponseEntity.noContent().build();
+    }
+}
@@ -0,0 +1,15 @@
+package com.penta.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class CompositionDto {
+    private List<CompositionPickDto> picks;
+    private Double score; // Mean per-pick recommendation score, 0-1
+}
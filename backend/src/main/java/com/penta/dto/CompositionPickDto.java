@@ -0,0 +1,14 @@
+package com.penta.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class CompositionPickDto {
+    private String role;
+    private String summonerName;
+    private ChampionDto champion;
+}
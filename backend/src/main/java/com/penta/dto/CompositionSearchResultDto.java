@@ -0,0 +1,16 @@
+package com.penta.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class CompositionSearchResultDto {
+    private List<CompositionDto> compositions;
+    private Boolean complete; // False if the time budget ran out before the search space was exhausted
+    private Long nodesExplored;
+}
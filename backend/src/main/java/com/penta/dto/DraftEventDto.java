@@ -0,0 +1,18 @@
+package com.penta.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * One champion select action: an ally pick, an enemy pick or a ban
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class DraftEventDto {
+    public enum Type { ALLY_PICK, ENEMY_PICK, BAN }
+    
+    private Type type;
+    private String championName;
+}
@@ -0,0 +1,19 @@
+package com.penta.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * A lobby player; side is relative to the request's teamChampions (ALLY when missing)
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class LobbyMemberDto {
+    public enum Side { ALLY, ENEMY }
+    
+    private String summonerName;
+    private String role;
+    private Side side;
+}
@@ -0,0 +1,17 @@
+package com.penta.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class LobbyRecommendationDto {
+    private String summonerName;
+    private String role;
+    private LobbyMemberDto.Side side;
+    private List<ChampionRecommendationDto> recommendations;
+}
@@ -0,0 +1,20 @@
+package com.penta.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class UggPrefetchStatusDto {
+    private String version; // ddragon version the run warms the caches for
+    private Boolean running;
+    private Integer totalPages;
+    private Integer completedPages;
+    private Integer failedPages;
+    private LocalDateTime startedAt;
+    private LocalDateTime finishedAt;
+}
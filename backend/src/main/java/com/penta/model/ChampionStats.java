@@ -8,7 +8,9 @@ import lombok.NoArgsConstructor;
 import java.time.LocalDateTime;
 
 @Entity
-@Table(name = "champion_stats")
+@Table(name = "champion_stats", uniqueConstraints = {
+    @UniqueConstraint(columnNames = {"champion_id", "patch", "rank", "role"})
+})
 @Data
 @NoArgsConstructor
 @AllArgsConstructor
@@ -69,9 +71,89 @@ public class ChampionStats {
     @Column(nullable = false)
     private Double averageVisionScore;
     
+    // Running sums and sums of squares behind the averages, so averages and standard
+    // deviations are O(1). Rows written before these columns existed are backfilled at startup.
+    @Column
+    private Double totalKills;
+    
+    @Column
+    private Double totalKillsSquared;
+    
+    @Column
+    private Double totalDeaths;
+    
+    @Column
+    private Double totalDeathsSquared;
+    
+    @Column
+    private Double totalAssists;
+    
+    @Column
+    private Double totalAssistsSquared;
+    
+    @Column
+    private Double totalCs;
+    
+    @Column
+    private Double totalCsSquared;
+    
+    @Column
+    private Double totalGold;
+    
+    @Column
+    private Double totalGoldSquared;
+    
+    @Column
+    private Double totalDamage;
+    
+    @Column
+    private Double totalDamageSquared;
+    
+    @Column
+    private Double totalVisionScore;
+    
+    @Column
+    private Double totalVisionScoreSquared;
+    
     @Column(nullable = false)
     private Integer tier;
     
     @Column(nullable = false)
     private LocalDateTime lastUpdated;
+
+    public double getKillsStdDev() {
+        return standardDeviation(totalKills, totalKillsSquared);
+    }
+    
+    public double getDeathsStdDev() {
+        return standardDeviation(totalDeaths, totalDeathsSquared);
+    }
+    
+    public double getAssistsStdDev() {
+        return standardDeviation(totalAssists, totalAssistsSquared);
+    }
+    
+    public double getCsStdDev() {
+        return standardDeviation(totalCs, totalCsSquared);
+    }
+    
+    public double getGoldStdDev() {
+        return standardDeviation(totalGold, totalGoldSquared);
+    }
+    
+    public double getDamageStdDev() {
+        return standardDeviation(totalDamage, totalDamageSquared);
+    }
+    
+    public double getVisionScoreStdDev() {
+        return standardDeviation(totalVisionScore, totalVisionScoreSquared);
+    }
+    
+    private double standardDeviation(Double total, Double totalSquared) {
+        if (total == null || totalSquared == null || totalGames == null || totalGames < 2) {
+            return 0.0;
+        }
+        double mean = total / totalGames;
+        return Math.sqrt(Math.max(0.0, totalSquared / totalGames - mean * mean));
+    }
 }
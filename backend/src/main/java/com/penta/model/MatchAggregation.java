@@ -0,0 +1,36 @@
+package com.penta.model;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+/**
+ * Ledger row recording that a match has been counted into one kind of aggregate
+ */
+@Entity
+@Table(name = "match_aggregations", uniqueConstraints = {
+    @UniqueConstraint(columnNames = {"match_id", "kind"})
+})
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class MatchAggregation {
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+    
+    @Column(nullable = false)
+    private String matchId; // Riot match id, e.g. NA1_1234567890
+    
+    @Column(nullable = false)
+    private String kind; // CHAMPION, MATCHUP or SYNERGY
+    
+    @Column(nullable = false)
+    private String patch;
+    
+    @Column(nullable = false)
+    private LocalDateTime processedAt;
+}
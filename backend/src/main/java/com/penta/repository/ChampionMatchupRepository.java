@@ -3,6 +3,7 @@ package com.penta.repository;
 import com.penta.model.Champion;
 import com.penta.model.ChampionMatchup;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
@@ -39,4 +40,47 @@ public interface ChampionMatchupRepository extends JpaRepository<ChampionMatchup
                                                       @Param("champion2") Champion champion2, 
                                                       @Param("patch") String patch, 
                                                       @Param("rank") String rank);
+    
+    /**
+     * Atomically add games to a matchup row, creating it if needed; rates are derived in the same statement
+     */
+    @Modifying
+    @Query(nativeQuery = true, value = """
+            MERGE INTO champion_matchups t
+            USING (SELECT CAST(:champion1Id AS BIGINT) AS champion1_id, CAST(:champion2Id AS BIGINT) AS champion2_id,
+                          CAST(:patch AS VARCHAR(255)) AS patch, CAST(:rank AS VARCHAR(255)) AS rank,
+                          CAST(:role AS VARCHAR(255)) AS role, CAST(:games AS INT) AS games,
+                          CAST(:champion1Wins AS INT) AS champion1_wins, CAST(:champion2Wins AS INT) AS champion2_wins) s
+            ON t.champion1_id = s.champion1_id AND t.champion2_id = s.champion2_id
+               AND t.patch = s.patch AND t.rank = s.rank AND t.role = s.role
+            WHEN MATCHED THEN UPDATE SET
+                total_games = t.total_games + s.games,
+                champion1_wins = t.champion1_wins + s.champion1_wins,
+                champion2_wins = t.champion2_wins + s.champion2_wins,
+                champion1_win_rate = (t.champion1_wins + s.champion1_wins) * 100.0 / (t.total_games + s.games),
+                champion2_win_rate = (t.champion2_wins + s.champion2_wins) * 100.0 / (t.total_games + s.games),
+                matchup_score = ((t.champion1_wins + s.champion1_wins) * 100.0 / (t.total_games + s.games) - 50.0) / 50.0,
+                last_updated = LOCALTIMESTAMP
+            WHEN NOT MATCHED THEN INSERT (champion1_id, champion2_id, patch, rank, role, total_games, champion1_wins,
+                    champion2_wins, champion1_win_rate, champion2_win_rate, matchup_score, last_updated)
+                VALUES (s.champion1_id, s.champion2_id, s.patch, s.rank, s.role, s.games, s.champion1_wins,
+                    s.champion2_wins, s.champion1_wins * 100.0 / s.games, s.champion2_wins * 100.0 / s.games,
+                    (s.champion1_wins * 100.0 / s.games - 50.0) / 50.0, LOCALTIMESTAMP)
+            """)
+    int mergeIncrement(@Param("champion1Id") Long champion1Id,
+                       @Param("champion2Id") Long champion2Id,
+                       @Param("patch") String patch,
+                       @Param("rank") String rank,
+                       @Param("role") String role,
+                       @Param("games") int games,
+                       @Param("champion1Wins") int champion1Wins,
+                       @Param("champion2Wins") int champion2Wins);
+    
+    @Modifying
+    @Query("DELETE FROM ChampionMatchup cm WHERE cm.patch = :patch")
+    int deleteByPatch(@Param("patch") String patch);
+    
+    @Query("SELECT cm.champion1.championId AS champion1Id, cm.champion2.championId AS champion2Id, cm.patch AS patch, " +
+           "cm.rank AS rank, cm.role AS role, cm.totalGames AS games, cm.champion1Wins AS wins FROM ChampionMatchup cm")
+    List<PairCounts> findAllPairCounts();
 }
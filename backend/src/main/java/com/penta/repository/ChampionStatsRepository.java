@@ -3,6 +3,7 @@ package com.penta.repository;
 import com.penta.model.Champion;
 import com.penta.model.ChampionStats;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
@@ -35,4 +36,118 @@ public interface ChampionStatsRepository extends JpaRepository<ChampionStats, Lo
     List<ChampionStats> findTopChampionsByRoleAndRank(@Param("role") String role, 
                                                       @Param("rank") String rank, 
                                                       @Param("minWinRate") Double minWinRate);
+    
+    /**
+     * Atomically add one batch of games to a stat row, creating it if needed.
+     * Each metric takes its sum and sum of squares; running totals, averages, win rate
+     * and tier are derived from the updated counters in the same statement.
+     */
+    @Modifying
+    @Query(nativeQuery = true, value = """
+            MERGE INTO champion_stats t
+            USING (SELECT CAST(:championId AS BIGINT) AS champion_id, CAST(:patch AS VARCHAR(255)) AS patch,
+                          CAST(:rank AS VARCHAR(255)) AS rank, CAST(:role AS VARCHAR(255)) AS role,
+                          CAST(:games AS INT) AS games, CAST(:wins AS INT) AS wins, CAST(:losses AS INT) AS losses,
+                          CAST(:kills AS DOUBLE PRECISION) AS kills, CAST(:killsSquared AS DOUBLE PRECISION) AS kills_squared,
+                          CAST(:deaths AS DOUBLE PRECISION) AS deaths, CAST(:deathsSquared AS DOUBLE PRECISION) AS deaths_squared,
+                          CAST(:assists AS DOUBLE PRECISION) AS assists, CAST(:assistsSquared AS DOUBLE PRECISION) AS assists_squared,
+                          CAST(:cs AS DOUBLE PRECISION) AS cs, CAST(:csSquared AS DOUBLE PRECISION) AS cs_squared,
+                          CAST(:gold AS DOUBLE PRECISION) AS gold, CAST(:goldSquared AS DOUBLE PRECISION) AS gold_squared,
+                          CAST(:damage AS DOUBLE PRECISION) AS damage, CAST(:damageSquared AS DOUBLE PRECISION) AS damage_squared,
+                          CAST(:visionScore AS DOUBLE PRECISION) AS vision_score, CAST(:visionScoreSquared AS DOUBLE PRECISION) AS vision_score_squared) s
+            ON t.champion_id = s.champion_id AND t.patch = s.patch AND t.rank = s.rank AND t.role = s.role
+            WHEN MATCHED THEN UPDATE SET
+                total_games = t.total_games + s.games,
+                wins = t.wins + s.wins,
+                losses = t.losses + s.losses,
+                win_rate = (t.wins + s.wins) * 100.0 / (t.total_games + s.games),
+                total_kills = COALESCE(t.total_kills, t.average_kills * t.total_games) + s.kills,
+                total_kills_squared = COALESCE(t.total_kills_squared, t.average_kills * t.average_kills * t.total_games) + s.kills_squared,
+                average_kills = (COALESCE(t.total_kills, t.average_kills * t.total_games) + s.kills) / (t.total_games + s.games),
+                total_deaths = COALESCE(t.total_deaths, t.average_deaths * t.total_games) + s.deaths,
+                total_deaths_squared = COALESCE(t.total_deaths_squared, t.average_deaths * t.average_deaths * t.total_games) + s.deaths_squared,
+                average_deaths = (COALESCE(t.total_deaths, t.average_deaths * t.total_games) + s.deaths) / (t.total_games + s.games),
+                total_assists = COALESCE(t.total_assists, t.average_assists * t.total_games) + s.assists,
+                total_assists_squared = COALESCE(t.total_assists_squared, t.average_assists * t.average_assists * t.total_games) + s.assists_squared,
+                average_assists = (COALESCE(t.total_assists, t.average_assists * t.total_games) + s.assists) / (t.total_games + s.games),
+                total_cs = COALESCE(t.total_cs, t.average_cs * t.total_games) + s.cs,
+                total_cs_squared = COALESCE(t.total_cs_squared, t.average_cs * t.average_cs * t.total_games) + s.cs_squared,
+                average_cs = (COALESCE(t.total_cs, t.average_cs * t.total_games) + s.cs) / (t.total_games + s.games),
+                total_gold = COALESCE(t.total_gold, t.average_gold * t.total_games) + s.gold,
+                total_gold_squared = COALESCE(t.total_gold_squared, t.average_gold * t.average_gold * t.total_games) + s.gold_squared,
+                average_gold = (COALESCE(t.total_gold, t.average_gold * t.total_games) + s.gold) / (t.total_games + s.games),
+                total_damage = COALESCE(t.total_damage, t.average_damage * t.total_games) + s.damage,
+                total_damage_squared = COALESCE(t.total_damage_squared, t.average_damage * t.average_damage * t.total_games) + s.damage_squared,
+                average_damage = (COALESCE(t.total_damage, t.average_damage * t.total_games) + s.damage) / (t.total_games + s.games),
+                total_vision_score = COALESCE(t.total_vision_score, t.average_vision_score * t.total_games) + s.vision_score,
+                total_vision_score_squared = COALESCE(t.total_vision_score_squared, t.average_vision_score * t.average_vision_score * t.total_games) + s.vision_score_squared,
+                average_vision_score = (COALESCE(t.total_vision_score, t.average_vision_score * t.total_games) + s.vision_score) / (t.total_games + s.games),
+                tier = CASE
+                    WHEN (t.wins + s.wins) * 100.0 / (t.total_games + s.games) >= 55 THEN 5
+                    WHEN (t.wins + s.wins) * 100.0 / (t.total_games + s.games) >= 52 THEN 4
+                    WHEN (t.wins + s.wins) * 100.0 / (t.total_games + s.games) >= 49 THEN 3
+                    WHEN (t.wins + s.wins) * 100.0 / (t.total_games + s.games) >= 46 THEN 2
+                    ELSE 1 END,
+                last_updated = LOCALTIMESTAMP
+            WHEN NOT MATCHED THEN INSERT (champion_id, patch, rank, role, total_games, wins, losses, win_rate,
+                    pick_rate, ban_rate, average_kills, average_deaths, average_assists, average_cs, average_gold, average_damage, average_vision_score,
+                    total_kills, total_kills_squared, total_deaths, total_deaths_squared, total_assists, total_assists_squared, total_cs, total_cs_squared, total_gold, total_gold_squared, total_damage, total_damage_squared, total_vision_score, total_vision_score_squared,
+                    tier, last_updated)
+                VALUES (s.champion_id, s.patch, s.rank, s.role, s.games, s.wins, s.losses, s.wins * 100.0 / s.games,
+                    0.0, 0.0, s.kills / s.games, s.deaths / s.games, s.assists / s.games, s.cs / s.games, s.gold / s.games, s.damage / s.games, s.vision_score / s.games,
+                    s.kills, s.kills_squared, s.deaths, s.deaths_squared, s.assists, s.assists_squared, s.cs, s.cs_squared, s.gold, s.gold_squared, s.damage, s.damage_squared, s.vision_score, s.vision_score_squared,
+                    CASE
+                        WHEN s.wins * 100.0 / s.games >= 55 THEN 5
+                        WHEN s.wins * 100.0 / s.games >= 52 THEN 4
+                        WHEN s.wins * 100.0 / s.games >= 49 THEN 3
+                        WHEN s.wins * 100.0 / s.games >= 46 THEN 2
+                        ELSE 1 END,
+                    LOCALTIMESTAMP)
+            """)
+    int mergeIncrement(@Param("championId") Long championId,
+                       @Param("patch") String patch,
+                       @Param("rank") String rank,
+                       @Param("role") String role,
+                       @Param("games") int games,
+                       @Param("wins") int wins,
+                       @Param("losses") int losses,
+                       @Param("kills") double kills,
+                       @Param("killsSquared") double killsSquared,
+                       @Param("deaths") double deaths,
+                       @Param("deathsSquared") double deathsSquared,
+                       @Param("assists") double assists,
+                       @Param("assistsSquared") double assistsSquared,
+                       @Param("cs") double cs,
+                       @Param("csSquared") double csSquared,
+                       @Param("gold") double gold,
+                       @Param("goldSquared") double goldSquared,
+                       @Param("damage") double damage,
+                       @Param("damageSquared") double damageSquared,
+                       @Param("visionScore") double visionScore,
+                       @Param("visionScoreSquared") double visionScoreSquared);
+    
+    /**
+     * Seed running totals for rows written before they existed, treating each stored average as exact
+     */
+    @Modifying
+    @Query(nativeQuery = true, value = """
+            UPDATE champion_stats SET
+                total_kills = average_kills * total_games, total_kills_squared = average_kills * average_kills * total_games,
+                total_deaths = average_deaths * total_games, total_deaths_squared = average_deaths * average_deaths * total_games,
+                total_assists = average_assists * total_games, total_assists_squared = average_assists * average_assists * total_games,
+                total_cs = average_cs * total_games, total_cs_squared = average_cs * average_cs * total_games,
+                total_gold = average_gold * total_games, total_gold_squared = average_gold * average_gold * total_games,
+                total_damage = average_damage * total_games, total_damage_squared = average_damage * average_damage * total_games,
+                total_vision_score = average_vision_score * total_games, total_vision_score_squared = average_vision_score * average_vision_score * total_games
+            WHERE total_kills IS NULL
+            """)
+    int backfillRunningTotals();
+    
+    @Query("SELECT cs.champion.championId AS championId, cs.role AS role, SUM(cs.totalGames) AS games " +
+           "FROM ChampionStats cs WHERE cs.rank = :rank AND cs.role <> 'ALL' GROUP BY cs.champion.championId, cs.role")
+    List<RoleGames> findRoleGamesByRank(@Param("rank") String rank);
+    
+    @Modifying
+    @Query("DELETE FROM ChampionStats cs WHERE cs.patch = :patch")
+    int deleteByPatch(@Param("patch") String patch);
 }
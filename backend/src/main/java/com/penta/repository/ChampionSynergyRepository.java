@@ -3,6 +3,7 @@ package com.penta.repository;
 import com.penta.model.Champion;
 import com.penta.model.ChampionSynergy;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
@@ -42,4 +43,44 @@ public interface ChampionSynergyRepository extends JpaRepository<ChampionSynergy
     List<ChampionSynergy> findTopSynergiesByType(@Param("synergyType") String synergyType, 
                                                  @Param("patch") String patch, 
                                                  @Param("rank") String rank);
+    
+    /**
+     * Atomically add games to a synergy row, creating it if needed; rates are derived in the same statement
+     */
+    @Modifying
+    @Query(nativeQuery = true, value = """
+            MERGE INTO champion_synergies t
+            USING (SELECT CAST(:champion1Id AS BIGINT) AS champion1_id, CAST(:champion2Id AS BIGINT) AS champion2_id,
+                          CAST(:patch AS VARCHAR(255)) AS patch, CAST(:rank AS VARCHAR(255)) AS rank,
+                          CAST(:games AS INT) AS games, CAST(:wins AS INT) AS wins, CAST(:losses AS INT) AS losses) s
+            ON t.champion1_id = s.champion1_id AND t.champion2_id = s.champion2_id
+               AND t.patch = s.patch AND t.rank = s.rank
+            WHEN MATCHED THEN UPDATE SET
+                total_games = t.total_games + s.games,
+                wins = t.wins + s.wins,
+                losses = t.losses + s.losses,
+                win_rate = (t.wins + s.wins) * 100.0 / (t.total_games + s.games),
+                synergy_score = GREATEST(0.0, LEAST(1.0, ((t.wins + s.wins) * 100.0 / (t.total_games + s.games) - 50.0) / 50.0 + 0.5)),
+                last_updated = LOCALTIMESTAMP
+            WHEN NOT MATCHED THEN INSERT (champion1_id, champion2_id, patch, rank, total_games, wins, losses,
+                    win_rate, synergy_score, synergy_type, last_updated)
+                VALUES (s.champion1_id, s.champion2_id, s.patch, s.rank, s.games, s.wins, s.losses,
+                    s.wins * 100.0 / s.games, GREATEST(0.0, LEAST(1.0, (s.wins * 100.0 / s.games - 50.0) / 50.0 + 0.5)),
+                    'TEAM', LOCALTIMESTAMP)
+            """)
+    int mergeIncrement(@Param("champion1Id") Long champion1Id,
+                       @Param("champion2Id") Long champion2Id,
+                       @Param("patch") String patch,
+                       @Param("rank") String rank,
+                       @Param("games") int games,
+                       @Param("wins") int wins,
+                       @Param("losses") int losses);
+    
+    @Modifying
+    @Query("DELETE FROM ChampionSynergy cs WHERE cs.patch = :patch")
+    int deleteByPatch(@Param("patch") String patch);
+    
+    @Query("SELECT cs.champion1.championId AS champion1Id, cs.champion2.championId AS champion2Id, cs.patch AS patch, " +
+           "cs.rank AS rank, 'ALL' AS role, cs.totalGames AS games, cs.wins AS wins FROM ChampionSynergy cs")
+    List<PairCounts> findAllPairCounts();
 }
@@ -0,0 +1,14 @@
+package com.penta.repository;
+
+import java.time.LocalDateTime;
+
+/**
+ * A player's record on one champion, as needed for comfort scoring
+ */
+public interface ComfortRow {
+    Integer getChampionId();
+    Integer getGamesPlayed();
+    Double getWinRate();
+    Integer getMasteryLevel();
+    LocalDateTime getLastPlayed();
+}
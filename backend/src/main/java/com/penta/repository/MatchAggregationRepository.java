@@ -0,0 +1,21 @@
+package com.penta.repository;
+
+import com.penta.model.MatchAggregation;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.util.List;
+
+@Repository
+public interface MatchAggregationRepository extends JpaRepository<MatchAggregation, Long> {
+    
+    @Query("SELECT a.kind FROM MatchAggregation a WHERE a.matchId = :matchId")
+    List<String> findKindsByMatchId(@Param("matchId") String matchId);
+    
+    @Modifying
+    @Query("DELETE FROM MatchAggregation a WHERE a.patch = :patch")
+    int deleteByPatch(@Param("patch") String patch);
+}
@@ -7,6 +7,7 @@ import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
@@ -15,6 +16,8 @@ public interface MatchRepository extends JpaRepository<Match, Long> {
     
     Optional<Match> findByMatchId(String matchId);
     
+    List<Match> findByMatchIdIn(Collection<String> matchIds);
+    
     List<Match> findByGameStartTimeBetween(LocalDateTime start, LocalDateTime end);
     
     List<Match> findByGameMode(String gameMode);
@@ -26,6 +29,22 @@ public interface MatchRepository extends JpaRepository<Match, Long> {
     @Query("SELECT m FROM Match m WHERE m.gameStartTime >= :since ORDER BY m.gameStartTime DESC")
     List<Match> findRecentMatches(@Param("since") LocalDateTime since);
     
+    @Query("SELECT m.id FROM Match m WHERE m.gameVersion LIKE CONCAT(:patch, '.%')")
+    List<Long> findIdsByPatch(@Param("patch") String patch);
+    
+    @Query("SELECT DISTINCT m FROM Match m LEFT JOIN FETCH m.participants p LEFT JOIN FETCH p.champion WHERE m.id IN :ids")
+    List<Match> findWithParticipantsByIdIn(@Param("ids") Collection<Long> ids);
+    
+    /**
+     * Recent matches of a patch that are missing from the aggregation ledger for at least one kind
+     */
+    @Query("SELECT DISTINCT m FROM Match m LEFT JOIN FETCH m.participants p LEFT JOIN FETCH p.champion " +
+           "WHERE m.gameStartTime >= :since AND m.gameVersion LIKE CONCAT(:patch, '.%') " +
+           "AND (SELECT COUNT(a) FROM MatchAggregation a WHERE a.matchId = m.matchId) < :kinds")
+    List<Match> findRecentUnaggregatedMatches(@Param("since") LocalDateTime since,
+                                              @Param("patch") String patch,
+                                              @Param("kinds") long kinds);
+    
     @Query("SELECT COUNT(m) FROM Match m WHERE m.gameStartTime >= :since")
     Long countMatchesSince(@Param("since") LocalDateTime since);
 }
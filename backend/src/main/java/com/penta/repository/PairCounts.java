@@ -0,0 +1,14 @@
+package com.penta.repository;
+
+/**
+ * Counters of one matchup or synergy row, keyed by Riot champion ids
+ */
+public interface PairCounts {
+    Integer getChampion1Id();
+    Integer getChampion2Id();
+    String getPatch();
+    String getRank();
+    String getRole();
+    Integer getGames();
+    Integer getWins();
+}
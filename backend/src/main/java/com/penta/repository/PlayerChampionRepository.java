@@ -3,6 +3,8 @@ package com.penta.repository;
 import com.penta.model.Player;
 import com.penta.model.PlayerChampion;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 import com.penta.model.Champion;
 import java.util.Optional;
@@ -12,5 +14,10 @@ import java.util.List;
 public interface PlayerChampionRepository extends JpaRepository<PlayerChampion, Long> {
     List<PlayerChampion> findByPlayerOrderByGamesPlayedDesc(Player player);
     Optional<PlayerChampion> findByPlayerAndChampion(Player player, Champion champion);
+    
+    @Query("SELECT pc.champion.championId AS championId, pc.gamesPlayed AS gamesPlayed, pc.winRate AS winRate, " +
+           "pc.masteryLevel AS masteryLevel, pc.lastPlayed AS lastPlayed " +
+           "FROM PlayerChampion pc WHERE pc.player.puuid = :puuid ORDER BY pc.gamesPlayed DESC")
+    List<ComfortRow> findComfortRowsByPuuid(@Param("puuid") String puuid);
 }
 
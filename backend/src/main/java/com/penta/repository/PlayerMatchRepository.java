@@ -5,6 +5,7 @@ import com.penta.model.PlayerMatch;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.stereotype.Repository;
 
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
@@ -13,4 +14,6 @@ public interface PlayerMatchRepository extends JpaRepository<PlayerMatch, Long>
     List<PlayerMatch> findByPlayerOrderByGameStartTimeDesc(Player player);
 
     Optional<PlayerMatch> findByPlayerAndMatchId(Player player, String matchId);
+
+    List<PlayerMatch> findByPlayerAndMatchIdIn(Player player, Collection<String> matchIds);
 }
\ No newline at end of file
@@ -0,0 +1,10 @@
+package com.penta.repository;
+
+/**
+ * Games played by one champion in one position
+ */
+public interface RoleGames {
+    Integer getChampionId();
+    String getRole();
+    Long getGames();
+}
@@ -1,15 +1,19 @@
 package com.penta.service;
 
+import com.penta.config.RiotApiConfig;
 import com.penta.dto.ChampionRecommendationDto;
 import com.penta.dto.ChampionDto;
+import com.penta.dto.LobbyMemberDto;
+import com.penta.dto.LobbyRecommendationDto;
 import com.penta.model.Champion;
 import com.penta.model.Player;
-import com.penta.model.PlayerChampion;
-import com.penta.dto.CounterData;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
 
 import java.util.*;
 import java.util.stream.Collectors;
@@ -19,12 +23,46 @@ public class ChampionRecommendationService {
     
     private static final Logger logger = LoggerFactory.getLogger(ChampionRecommendationService.class);
     
+    private static final int RECOMMENDATION_COUNT = 10;
+    
+    public static final int MAX_LOBBY_SIZE = 10;
+    
     @Autowired
-    private UggDataService uggDataService;
+    private MatchupDataSource matchupDataSource;
     
     @Autowired
     private RiotApiService riotApiService;
     
+    @Autowired
+    private ReactiveRiotApiService reactiveRiotApiService;
+    
+    @Autowired
+    private RoleIndexService roleIndexService;
+    
+    @Autowired
+    private RecommendationCache recommendationCache;
+    
+    @Autowired
+    private CounterPickIndex counterPickIndex;
+    
+    @Autowired
+    private ComfortProfileService comfortProfileService;
+    
+    @Autowired
+    private ChampionRegistry championRegistry;
+    
+    @Autowired
+    private RiotApiConfig riotApiConfig;
+    
+    @Value("${recommendation.rank:DIAMOND_PLUS}")
+    private String recommendationRank;
+    
+    @Value("${counter.rerank-slice:30}")
+    private int counterRerankSlice;
+    
+    @Value("${counter.comfort-weight:0.3}")
+    private double counterComfortWeight;
+    
     /**
      * Get champion recommendations for a player based on team composition and opponent picks
      */
@@ -44,166 +82,208 @@ public class ChampionRecommendationService {
         
         Player player = playerOpt.get();
         
-        // Get all available champions for the role
-        List<Champion> availableChampions = getChampionsForRole(preferredRole);
-        
-        // Calculate recommendations
-        List<ChampionRecommendationDto> recommendations = availableChampions.stream()
-                .map(champion -> calculateRecommendation(champion, player, teamChampions, opponentChampions))
-                .sorted((a, b) -> Double.compare(b.getRecommendationScore(), a.getRecommendationScore()))
-                .limit(10)
-                .collect(Collectors.toList());
-        
-        return recommendations;
+        // Champion select asks for the same draft state repeatedly
+        RecommendationCache.Key key = recommendationCache.key(player.getPuuid(),
+                riotApiConfig.getCurrentPatch(), recommendationRank, preferredRole, teamChampions, opponentChampions);
+        return recommendationCache.get(key, () -> scoreRecommendations(player, teamChampions, opponentChampions, preferredRole));
     }
     
     /**
-     * Calculate recommendation score for a specific champion
+     * Get the best counter picks against a champion in a lane. With a summoner name, the
+     * strongest counters are re-ranked by how comfortable that player is on them.
      */
-    private ChampionRecommendationDto calculateRecommendation(
-            Champion champion, 
-            Player player, 
-            List<String> teamChampions, 
-            List<String> opponentChampions) {
-        
-        ChampionRecommendationDto recommendation = new ChampionRecommendationDto();
-        recommendation.setChampion(convertToDto(champion));
-        
-        // Calculate different factors
-        double playerComfortScore = calculatePlayerComfort(champion, player);
-        double teamSynergyScore = calculateTeamSynergy(champion, teamChampions);
-        double opponentMatchupScore = calculateOpponentMatchup(champion, opponentChampions);
-        double metaScore = calculateMetaScore(champion);
-        
-        // Weighted final score
-        double finalScore = (playerComfortScore * 0.4) + 
-                           (teamSynergyScore * 0.3) + 
-                           (opponentMatchupScore * 0.2) + 
-                           (metaScore * 0.1);
-        
-        recommendation.setRecommendationScore(finalScore);
-        recommendation.setReason(generateRecommendationReason(playerComfortScore, teamSynergyScore, opponentMatchupScore, metaScore));
+    public List<ChampionRecommendationDto> getCounterRecommendations(
+            String championName, 
+            String region, 
+            String summonerName, 
+            String preferredRole) {
         
-        return recommendation;
-    }
-    
-    /**
-     * Calculate how comfortable the player is with this champion
-     */
-    private double calculatePlayerComfort(Champion champion, Player player) {
-        if (player.getRecentChampions() == null) {
-            return 0.5; // Default comfort for unknown champions
+        Optional<Champion> enemyOpt = championRegistry.findByName(championName);
+        if (enemyOpt.isEmpty()) {
+            logger.warn("Champion not found: {}", championName);
+            return Collections.emptyList();
         }
+        Champion enemy = enemyOpt.get();
         
-        Optional<PlayerChampion> playerChampionOpt = player.getRecentChampions().stream()
-                .filter(pc -> pc.getChampion().getChampionId().equals(champion.getChampionId()))
-                .findFirst();
+        CounterPickIndex.Counters counters = counterPickIndex.counters(
+                riotApiConfig.getCurrentPatch(), recommendationRank, Positions.normalize(preferredRole), enemy.getChampionId());
         
-        if (playerChampionOpt.isEmpty()) {
-            return 0.3; // Lower comfort for unplayed champions
+        double[] comfort = null;
+        if (summonerName != null && region != null) {
+            Optional<Player> playerOpt = riotApiService.getPlayerBySummonerName(summonerName, region);
+            if (playerOpt.isPresent()) {
+                comfort = comfortProfileService.profile(playerOpt.get(), counters.snapshot()).comfort();
+            }
         }
         
-        PlayerChampion playerChampion = playerChampionOpt.get();
-        
-        // Calculate comfort based on games played, win rate, and mastery
-        double gamesWeight = Math.min(playerChampion.getGamesPlayed() / 50.0, 1.0); // Cap at 50 games
-        double winRateWeight = playerChampion.getWinRate() / 100.0;
-        double masteryWeight = Math.min(playerChampion.getMasteryLevel() / 7.0, 1.0); // Cap at mastery 7
+        // Counters are pre-sorted; only the top slice is read, and re-ranked when personalized
+        int slice = Math.min(counters.size(), comfort != null ? Math.max(counterRerankSlice, RECOMMENDATION_COUNT) : RECOMMENDATION_COUNT);
+        double[] scores = new double[slice];
+        Integer[] order = new Integer[slice];
+        for (int i = 0; i < slice; i++) {
+            double winRate = counters.winRates()[i];
+            scores[i] = comfort != null
+                    ? winRate * (1 - counterComfortWeight) + comfort[counters.champions()[i]] * counterComfortWeight
+                    : winRate;
+            order[i] = i;
+        }
+        Arrays.sort(order, (a, b) -> Double.compare(scores[b], scores[a]));
+        
+        List<ChampionRecommendationDto> recommendations = new ArrayList<>();
+        for (int k = 0; k < Math.min(slice, RECOMMENDATION_COUNT); k++) {
+            int i = order[k];
+            ChampionRecommendationDto recommendation = new ChampionRecommendationDto();
+            recommendation.setChampion(convertToDto(counters.snapshot().byIndex(counters.champions()[i])));
+            recommendation.setRecommendationScore(scores[i]);
+            recommendation.setReason(String.format("%.1f%% adjusted win rate over %d games against %s",
+                    counters.winRates()[i] * 100, counters.games()[i], enemy.getName()));
+            recommendations.add(recommendation);
+        }
         
-        return (gamesWeight * 0.4) + (winRateWeight * 0.4) + (masteryWeight * 0.2);
+        return recommendations;
     }
     
     /**
-     * Calculate team synergy score
+     * Get recommendations for every member of a lobby (up to MAX_LOBBY_SIZE players) in one pass.
+     * Players are resolved concurrently and members in the same role share one matchup view;
+     * members that cannot be resolved get an empty list. teamChampions and opponentChampions are
+     * the ALLY side's view of the draft; ENEMY members are scored with the two lists swapped.
      */
-    private double calculateTeamSynergy(Champion champion, List<String> teamChampions) {
-        if (teamChampions == null || teamChampions.isEmpty()) {
-            return 0.5; // Neutral score if no team data
-        }
-        
-        Optional<Map<String, Double>> synergyDataOpt = uggDataService.getChampionSynergy(champion.getName());
+    public List<LobbyRecommendationDto> getLobbyRecommendations(
+            String region, 
+            List<LobbyMemberDto> members, 
+            List<String> teamChampions, 
+            List<String> opponentChampions) {
         
-        if (synergyDataOpt.isEmpty()) {
-            return 0.5; // Neutral score if data fetch failed
+        if (members.size() > MAX_LOBBY_SIZE) {
+            throw new IllegalArgumentException("At most " + MAX_LOBBY_SIZE + " players per lobby");
         }
         
-        Map<String, Double> synergyData = synergyDataOpt.get();
-        double totalSynergy = 0.0;
-        int validChampions = 0;
-        
-        for (String teamChampion : teamChampions) {
-            if (synergyData.containsKey(teamChampion)) {
-                totalSynergy += synergyData.get(teamChampion);
-                validChampions++;
+        Map<String, Player> players = resolvePlayers(region, members.stream()
+                .map(LobbyMemberDto::getSummonerName)
+                .collect(Collectors.toList()));
+        Map<String, MatchupDataSource.MatchupView> views = new HashMap<>();
+        
+        List<LobbyRecommendationDto> results = new ArrayList<>();
+        for (LobbyMemberDto member : members) {
+            String role = member.getRole() != null ? member.getRole() : "MID";
+            LobbyMemberDto.Side side = member.getSide() != null ? member.getSide() : LobbyMemberDto.Side.ALLY;
+            List<String> allies = side == LobbyMemberDto.Side.ALLY ? teamChampions : opponentChampions;
+            List<String> enemies = side == LobbyMemberDto.Side.ALLY ? opponentChampions : teamChampions;
+            Player player = players.get(member.getSummonerName());
+            List<ChampionRecommendationDto> recommendations = Collections.emptyList();
+            
+            if (player != null) {
+                MatchupDataSource.MatchupView view = views.computeIfAbsent(Positions.normalize(role), position -> view(role));
+                RecommendationCache.Key key = recommendationCache.key(player.getPuuid(),
+                        riotApiConfig.getCurrentPatch(), recommendationRank, role, allies, enemies);
+                recommendations = recommendationCache.get(key,
+                        () -> scoreRecommendations(player, allies, enemies, role, view));
             }
+            results.add(new LobbyRecommendationDto(member.getSummonerName(), role, side, recommendations));
         }
         
-        if (validChampions == 0) {
-            return 0.5; // Neutral score if no synergy data
-        }
-        
-        return (totalSynergy / validChampions) / 100.0; // Convert percentage to 0-1 scale
+        return results;
     }
     
     /**
-     * Calculate opponent matchup score
+     * Resolve several players concurrently, keyed by summoner name; players that are not found or fail to resolve are left out
      */
-    private double calculateOpponentMatchup(Champion champion, List<String> opponentChampions) {
-        if (opponentChampions == null || opponentChampions.isEmpty()) {
-            return 0.5; // Neutral score if no opponent data
-        }
-        
-        Optional<List<CounterData>> matchupDataOpt = uggDataService.getGoodMatchups(champion.getName());
-        
-        if (matchupDataOpt.isEmpty()) {
-            return 0.5; // Neutral score if data fetch failed
-        }
-        
-        List<CounterData> matchupData = matchupDataOpt.get();
+    public Map<String, Player> resolvePlayers(String region, List<String> summonerNames) {
+        Map<String, Player> players = Flux.fromStream(summonerNames.stream().filter(Objects::nonNull).distinct())
+                .flatMap(summonerName -> reactiveRiotApiService.getPlayerBySummonerName(summonerName, region)
+                        .map(player -> Map.entry(summonerName, player))
+                        .onErrorResume(e -> {
+                            logger.warn("Error resolving player {}: {}", summonerName, e.getMessage());
+                            return Mono.empty();
+                        }))
+                .collectMap(Map.Entry::getKey, Map.Entry::getValue)
+                .block();
+        return players != null ? players : Map.of();
+    }
+    
+    private MatchupDataSource.MatchupView view(String preferredRole) {
+        return matchupDataSource.view(riotApiConfig.getCurrentPatch(), recommendationRank, Positions.normalize(preferredRole));
+    }
+    
+    private List<ChampionRecommendationDto> scoreRecommendations(
+            Player player, 
+            List<String> teamChampions, 
+            List<String> opponentChampions, 
+            String preferredRole) {
+        return scoreRecommendations(player, teamChampions, opponentChampions, preferredRole, view(preferredRole));
+    }
+    
+    private List<ChampionRecommendationDto> scoreRecommendations(
+            Player player, 
+            List<String> teamChampions, 
+            List<String> opponentChampions, 
+            String preferredRole, 
+            MatchupDataSource.MatchupView view) {
         
-        // Create a map for easier lookup
-        Map<String, Double> matchupMap = matchupData.stream()
-                .collect(Collectors.toMap(
-                    CounterData::getChampionName,
-                    CounterData::getWinRate,
-                    (existing, replacement) -> existing // Handle duplicates by keeping first
-                ));
+        // Get all available champions for the role
+        List<Champion> availableChampions = getChampionsForRole(preferredRole);
         
-        double totalMatchup = 0.0;
-        int validChampions = 0;
+        // Resolve the draft once against the matchup data's champion index
+        int[] allies = resolveIndexes(view.snapshot(), teamChampions);
+        int[] opponents = resolveIndexes(view.snapshot(), opponentChampions);
         
-        for (String opponentChampion : opponentChampions) {
-            if (matchupMap.containsKey(opponentChampion)) {
-                totalMatchup += matchupMap.get(opponentChampion);
-                validChampions++;
-            }
-        }
+        // Score every candidate into arrays, then build DTOs for the winners only
+        double[] comfort = comfortProfileService.profile(player, view.snapshot()).comfort();
+        RecommendationScorer.Scores scores = RecommendationScorer.score(availableChampions, comfort, view, allies, opponents);
         
-        if (validChampions == 0) {
-            return 0.5; // Neutral score if no matchup data
+        return toRecommendations(scores);
+    }
+    
+    /**
+     * Start incremental scoring for a live draft; picks and bans are applied to the returned state as they happen
+     */
+    public DraftScoreState startDraft(Player player, String preferredRole) {
+        MatchupDataSource.MatchupView view = view(preferredRole);
+        return new DraftScoreState(getChampionsForRole(preferredRole),
+                comfortProfileService.profile(player, view.snapshot()).comfort(), view);
+    }
+    
+    /**
+     * DTOs for the best scored candidates, best first
+     */
+    public List<ChampionRecommendationDto> toRecommendations(RecommendationScorer.Scores scores) {
+        List<ChampionRecommendationDto> recommendations = new ArrayList<>();
+        for (int candidate : scores.top(RECOMMENDATION_COUNT)) {
+            recommendations.add(toRecommendation(scores, candidate));
         }
-        
-        return (totalMatchup / validChampions) / 100.0; // Convert percentage to 0-1 scale
+        return recommendations;
     }
     
     /**
-     * Calculate meta score based on current champion performance
+     * Compact indexes of the named champions; unknown names are dropped
      */
-    private double calculateMetaScore(Champion champion) {
-        // This would use current meta data from u.gg
-        // For now, using a simple tier-based score
-        if (champion.getTier() == null) {
-            return 0.5;
+    private int[] resolveIndexes(ChampionRegistry.Snapshot snapshot, List<String> championNames) {
+        if (championNames == null) {
+            return new int[0];
         }
-        
-        // Convert tier to score (S=5, A=4, B=3, C=2, D=1)
-        return champion.getTier() / 5.0;
+        return championNames.stream()
+                .mapToInt(snapshot::indexOfName)
+                .filter(index -> index >= 0)
+                .toArray();
+    }
+    
+    /**
+     * Build the DTO for one scored candidate
+     */
+    private ChampionRecommendationDto toRecommendation(RecommendationScorer.Scores scores, int candidate) {
+        ChampionRecommendationDto recommendation = new ChampionRecommendationDto();
+        recommendation.setChampion(convertToDto(scores.champion(candidate)));
+        recommendation.setRecommendationScore(scores.total(candidate));
+        recommendation.setReason(generateRecommendationReason(scores.comfort(candidate), scores.synergy(candidate),
+                scores.matchup(candidate), scores.meta(candidate)));
+        return recommendation;
     }
     
     /**
      * Generate human-readable recommendation reason
      */
-    private String generateRecommendationReason(double playerComfort, double teamSynergy, double opponentMatchup, double metaScore) {
+    static String generateRecommendationReason(double playerComfort, double teamSynergy, double opponentMatchup, double metaScore) {
         List<String> reasons = new ArrayList<>();
         
         if (playerComfort > 0.7) {
@@ -235,15 +315,13 @@ public class ChampionRecommendationService {
      * Get champions for a specific role
      */
     private List<Champion> getChampionsForRole(String role) {
-        // This would query the database for champions in the specified role
-        // For now, returning mock data
-        return new ArrayList<>();
+        return roleIndexService.candidates(role).champions();
     }
     
     /**
      * Convert Champion entity to DTO
      */
-    private ChampionDto convertToDto(Champion champion) {
+    public ChampionDto convertToDto(Champion champion) {
         ChampionDto dto = new ChampionDto();
         dto.setId(champion.getId());
         dto.setChampionId(champion.getChampionId());
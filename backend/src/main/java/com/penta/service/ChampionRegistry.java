@@ -0,0 +1,191 @@
+package com.penta.service;
+
+import com.penta.model.Champion;
+import com.penta.repository.ChampionRepository;
+import jakarta.annotation.PostConstruct;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.stereotype.Service;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+/**
+ * In-memory champion reference data, loaded once and swapped atomically when champion
+ * data is re-initialized. Replaces per-participant repository lookups on the ingestion
+ * and recommendation paths.
+ *
+ * Champion entities handed out here are shared and detached; treat them as read-only.
+ */
+@Service
+public class ChampionRegistry {
+
+    private static final Logger logger = LoggerFactory.getLogger(ChampionRegistry.class);
+
+    @Autowired
+    private ChampionRepository championRepository;
+
+    @Autowired
+    private ApplicationEventPublisher eventPublisher;
+
+    private volatile Snapshot snapshot = Snapshot.of(List.of());
+
+    @PostConstruct
+    public void init() {
+        reload();
+    }
+
+    /**
+     * Published after a reload; compact indexes from the previous snapshot are no longer valid
+     */
+    public record Reloaded(Snapshot snapshot) {
+    }
+
+    /**
+     * Rebuild the registry from the champions table and publish it atomically
+     */
+    public void reload() {
+        Snapshot loaded = Snapshot.of(championRepository.findAll());
+        snapshot = loaded;
+        logger.info("Champion registry loaded with {} champions", loaded.size());
+        eventPublisher.publishEvent(new Reloaded(loaded));
+    }
+
+    /**
+     * Current immutable view; use it when several lookups must agree with each other
+     */
+    public Snapshot snapshot() {
+        return snapshot;
+    }
+
+    public Optional<Champion> findByChampionId(Integer championId) {
+        return championId == null ? Optional.empty() : Optional.ofNullable(snapshot.byChampionId(championId));
+    }
+
+    public Optional<Champion> findByName(String name) {
+        return Optional.ofNullable(snapshot.byName(name));
+    }
+
+    public List<Champion> getAll() {
+        return snapshot.all();
+    }
+
+    /**
+     * Lower-case and strip everything but letters and digits, so "Kai'Sa", "kaisa" and "KaiSa" match
+     */
+    public static String normalizeName(String name) {
+        if (name == null) {
+            return "";
+        }
+        StringBuilder normalized = new StringBuilder(name.length());
+        for (int i = 0; i < name.length(); i++) {
+            char c = name.charAt(i);
+            if (Character.isLetterOrDigit(c)) {
+                normalized.append(Character.toLowerCase(c));
+            }
+        }
+        return normalized.toString();
+    }
+
+    /**
+     * Immutable, array-indexed champion lookup tables.
+     *
+     * Champions are addressed either by Riot championId (sparse) or by a compact index
+     * 0..size()-1 (dense, ordered by championId) suitable for primitive per-champion arrays.
+     */
+    public static final class Snapshot {
+        private final Champion[] byChampionId;
+        private final int[] indexByChampionId;
+        private final Champion[] byIndex;
+        private final Map<String, Champion> byNormalizedName;
+        private final List<Champion> all;
+
+        private Snapshot(Champion[] byChampionId, int[] indexByChampionId, Champion[] byIndex,
+                         Map<String, Champion> byNormalizedName) {
+            this.byChampionId = byChampionId;
+            this.indexByChampionId = indexByChampionId;
+            this.byIndex = byIndex;
+            this.byNormalizedName = byNormalizedName;
+            this.all = Collections.unmodifiableList(Arrays.asList(byIndex));
+        }
+
+        static Snapshot of(List<Champion> champions) {
+            Champion[] byIndex = champions.stream()
+                    .filter(c -> c.getChampionId() != null && c.getChampionId() >= 0)
+                    .sorted(Comparator.comparing(Champion::getChampionId))
+                    .toArray(Champion[]::new);
+
+            int maxId = byIndex.length > 0 ? byIndex[byIndex.length - 1].getChampionId() : -1;
+            Champion[] byChampionId = new Champion[maxId + 1];
+            int[] indexByChampionId = new int[maxId + 1];
+            Arrays.fill(indexByChampionId, -1);
+
+            Map<String, Champion> byNormalizedName = new HashMap<>();
+            for (int i = 0; i < byIndex.length; i++) {
+                Champion champion = byIndex[i];
+                byChampionId[champion.getChampionId()] = champion;
+                indexByChampionId[champion.getChampionId()] = i;
+                byNormalizedName.put(normalizeName(champion.getName()), champion);
+
+                // Data Dragon keys differ from display names for a few champions (Wukong -> MonkeyKing)
+                String ddragonKey = ddragonKey(champion.getImageUrl());
+                if (ddragonKey != null) {
+                    byNormalizedName.putIfAbsent(normalizeName(ddragonKey), champion);
+                }
+            }
+
+            return new Snapshot(byChampionId, indexByChampionId, byIndex, byNormalizedName);
+        }
+
+        private static String ddragonKey(String imageUrl) {
+            if (imageUrl == null) {
+                return null;
+            }
+            int start = imageUrl.lastIndexOf('/') + 1;
+            int end = imageUrl.lastIndexOf('.');
+            return end > start ? imageUrl.substring(start, end) : null;
+        }
+
+        public int size() {
+            return byIndex.length;
+        }
+
+        public Champion byChampionId(int championId) {
+            return championId >= 0 && championId < byChampionId.length ? byChampionId[championId] : null;
+        }
+
+        public Champion byName(String name) {
+            return byNormalizedName.get(normalizeName(name));
+        }
+
+        /**
+         * Compact index for a Riot championId, or -1 if unknown
+         */
+        public int indexOf(int championId) {
+            return championId >= 0 && championId < indexByChampionId.length ? indexByChampionId[championId] : -1;
+        }
+
+        /**
+         * Compact index for a champion name, or -1 if unknown
+         */
+        public int indexOfName(String name) {
+            Champion champion = byName(name);
+            return champion != null ? indexOf(champion.getChampionId()) : -1;
+        }
+
+        public Champion byIndex(int index) {
+            return byIndex[index];
+        }
+
+        public List<Champion> all() {
+            return all;
+        }
+    }
+}
@@ -0,0 +1,133 @@
+package com.penta.service;
+
+import com.penta.repository.ComfortRow;
+
+import java.time.LocalDate;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * One player's champion history as primitive arrays indexed by the compact champion index
+ * of a registry snapshot, with the comfort score precomputed per champion.
+ *
+ * Comfort is 0.4 x games (capped at 50) + 0.4 x win rate + 0.2 x mastery (capped at 7);
+ * champions the player has not played score 0.3, and every champion scores 0.5 when the
+ * player has no recorded history at all. Arrays are shared; do not modify.
+ */
+public final class ComfortProfile {
+
+    static final double UNKNOWN_COMFORT = 0.5;
+    static final double UNPLAYED_COMFORT = 0.3;
+
+    private static final int NEVER = -1;
+
+    private final ChampionRegistry.Snapshot snapshot;
+    private final boolean known;
+    private final int[] games;
+    private final double[] winRates;
+    private final int[] mastery;
+    private final int[] lastPlayedEpochDay;
+    private final double[] comfort;
+
+    private ComfortProfile(ChampionRegistry.Snapshot snapshot, boolean known) {
+        int n = snapshot.size();
+        this.snapshot = snapshot;
+        this.known = known;
+        this.games = new int[n];
+        this.winRates = new double[n];
+        this.mastery = new int[n];
+        this.lastPlayedEpochDay = new int[n];
+        this.comfort = new double[n];
+        Arrays.fill(lastPlayedEpochDay, NEVER);
+        Arrays.fill(comfort, known ? UNPLAYED_COMFORT : UNKNOWN_COMFORT);
+    }
+
+    /**
+     * Profile for a player with no recorded history
+     */
+    public static ComfortProfile unknown(ChampionRegistry.Snapshot snapshot) {
+        return new ComfortProfile(snapshot, false);
+    }
+
+    /**
+     * Profile from a player's champion rows; the first row for a champion wins
+     */
+    public static ComfortProfile of(ChampionRegistry.Snapshot snapshot, List<ComfortRow> rows) {
+        if (rows.isEmpty()) {
+            return unknown(snapshot);
+        }
+
+        ComfortProfile profile = new ComfortProfile(snapshot, true);
+        boolean[] seen = new boolean[snapshot.size()];
+        for (ComfortRow row : rows) {
+            int index = row.getChampionId() != null ? snapshot.indexOf(row.getChampionId()) : -1;
+            if (index < 0 || seen[index]) {
+                continue;
+            }
+            seen[index] = true;
+            profile.games[index] = row.getGamesPlayed() != null ? row.getGamesPlayed() : 0;
+            profile.winRates[index] = row.getWinRate() != null ? row.getWinRate() : 0.0;
+            profile.mastery[index] = row.getMasteryLevel() != null ? row.getMasteryLevel() : 0;
+            if (row.getLastPlayed() != null) {
+                profile.lastPlayedEpochDay[index] = (int) row.getLastPlayed().toLocalDate().toEpochDay();
+            }
+            profile.comfort[index] = comfort(profile.games[index], profile.winRates[index], profile.mastery[index]);
+        }
+        return profile;
+    }
+
+    private static double comfort(int games, double winRate, int mastery) {
+        double gamesWeight = Math.min(games / 50.0, 1.0);
+        double winRateWeight = winRate / 100.0;
+        double masteryWeight = Math.min(mastery / 7.0, 1.0);
+
+        return (gamesWeight * 0.4) + (winRateWeight * 0.4) + (masteryWeight * 0.2);
+    }
+
+    /**
+     * Registry snapshot whose compact indexes this profile uses
+     */
+    public ChampionRegistry.Snapshot snapshot() {
+        return snapshot;
+    }
+
+    /**
+     * False when the player has no recorded champion history
+     */
+    public boolean known() {
+        return known;
+    }
+
+    /**
+     * Comfort for every compact index, 0-1
+     */
+    public double[] comfort() {
+        return comfort;
+    }
+
+    public double comfort(int index) {
+        return comfort[index];
+    }
+
+    public int games(int index) {
+        return games[index];
+    }
+
+    /**
+     * Win rate in percent
+     */
+    public double winRate(int index) {
+        return winRates[index];
+    }
+
+    public int mastery(int index) {
+        return mastery[index];
+    }
+
+    /**
+     * Day the champion was last played, or null if never
+     */
+    public LocalDate lastPlayed(int index) {
+        return lastPlayedEpochDay[index] != NEVER ? LocalDate.ofEpochDay(lastPlayedEpochDay[index]) : null;
+    }
+}
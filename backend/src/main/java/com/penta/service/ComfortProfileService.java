@@ -0,0 +1,88 @@
+package com.penta.service;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.penta.model.Player;
+import com.penta.repository.PlayerChampionRepository;
+import jakarta.annotation.PostConstruct;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+
+/**
+ * Comfort profiles cached by PUUID.
+ *
+ * A profile is rebuilt when the player's champion stats are rewritten; otherwise it is
+ * loaded once with a single projection query and reused by every recommendation request
+ * until it is evicted or the champion registry changes.
+ */
+@Service
+public class ComfortProfileService {
+
+    private static final Logger logger = LoggerFactory.getLogger(ComfortProfileService.class);
+
+    @Autowired
+    private PlayerChampionRepository playerChampionRepository;
+
+    @Autowired
+    private ChampionRegistry championRegistry;
+
+    @Value("${recommendation.comfort.max-players:10000}")
+    private long maxPlayers;
+
+    @Value("${recommendation.comfort.idle-timeout-minutes:60}")
+    private long idleTimeoutMinutes;
+
+    private Cache<String, ComfortProfile> profiles;
+
+    @PostConstruct
+    public void initCache() {
+        profiles = Caffeine.newBuilder()
+                .maximumSize(maxPlayers)
+                .expireAfterAccess(Duration.ofMinutes(idleTimeoutMinutes))
+                .build();
+    }
+
+    /**
+     * Comfort profile for a player indexed like the given snapshot
+     */
+    public ComfortProfile profile(Player player, ChampionRegistry.Snapshot snapshot) {
+        String puuid = player != null ? player.getPuuid() : null;
+        if (puuid == null) {
+            return ComfortProfile.unknown(snapshot);
+        }
+
+        ComfortProfile profile = profiles.getIfPresent(puuid);
+        if (profile != null && profile.snapshot() == snapshot) {
+            return profile;
+        }
+        profile = load(puuid, snapshot);
+        if (snapshot == championRegistry.snapshot()) {
+            profiles.put(puuid, profile);
+        }
+        return profile;
+    }
+
+    /**
+     * Rebuild a player's profile after their champion stats were written
+     */
+    public void refresh(String puuid) {
+        if (puuid == null) {
+            return;
+        }
+        try {
+            profiles.put(puuid, load(puuid, championRegistry.snapshot()));
+        } catch (Exception e) {
+            profiles.invalidate(puuid);
+            logger.error("Error rebuilding comfort profile for {}: {}", puuid, e.getMessage());
+        }
+    }
+
+    private ComfortProfile load(String puuid, ChampionRegistry.Snapshot snapshot) {
+        return ComfortProfile.of(snapshot, playerChampionRepository.findComfortRowsByPuuid(puuid));
+    }
+}
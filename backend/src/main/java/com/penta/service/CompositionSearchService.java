@@ -0,0 +1,388 @@
+package com.penta.service;
+
+import com.penta.config.RiotApiConfig;
+import com.penta.dto.CompositionDto;
+import com.penta.dto.CompositionPickDto;
+import com.penta.dto.CompositionSearchResultDto;
+import com.penta.dto.LobbyMemberDto;
+import com.penta.model.Champion;
+import com.penta.model.Player;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+/**
+ * Best completions of the open slots of a draft.
+ *
+ * A composition scores the sum over its picks of the single-pick factors (comfort 0.4,
+ * matchup against the enemy team 0.2, meta 0.1) plus 0.3 times the pick's mean synergy with
+ * all of its allies, locked and newly picked; unknown synergies count as neutral so the
+ * score splits into per-pick and per-pair terms. The search is a depth-first branch and
+ * bound over the best candidates of each slot: a branch is cut when its exact partial score
+ * plus the best remaining per-pick terms and the largest pair term for every open pair
+ * cannot beat the current N-th best composition. First-slot branches run in parallel, and
+ * the search returns what it has when the time budget runs out.
+ */
+@Service
+public class CompositionSearchService {
+
+    private static final Logger logger = LoggerFactory.getLogger(CompositionSearchService.class);
+
+    public static final int MAX_OPEN_SLOTS = 5;
+
+    @Autowired
+    private ChampionRecommendationService recommendationService;
+
+    @Autowired
+    private RoleIndexService roleIndexService;
+
+    @Autowired
+    private ComfortProfileService comfortProfileService;
+
+    @Autowired
+    private MatchupDataSource matchupDataSource;
+
+    @Autowired
+    private RiotApiConfig riotApiConfig;
+
+    @Value("${recommendation.rank:DIAMOND_PLUS}")
+    private String recommendationRank;
+
+    @Value("${composition.max-candidates-per-slot:25}")
+    private int maxCandidatesPerSlot;
+
+    @Value("${composition.time-budget-ms:250}")
+    private long timeBudgetMs;
+
+    @Value("${composition.max-results:20}")
+    private int maxResults;
+
+    @Value("${composition.parallelism:4}")
+    private int parallelism;
+
+    private ForkJoinPool pool;
+
+    @PostConstruct
+    public void initPool() {
+        pool = new ForkJoinPool(parallelism);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        pool.shutdownNow();
+    }
+
+    /**
+     * Top compositions for the open slots given the locked allies, the enemy team and bans.
+     * Each open slot names a role and optionally the player who will fill it.
+     */
+    public CompositionSearchResultDto search(
+            String region,
+            List<LobbyMemberDto> openSlots,
+            List<String> allyChampions,
+            List<String> enemyChampions,
+            List<String> bannedChampions,
+            int topN) {
+
+        if (openSlots.isEmpty() || openSlots.size() > MAX_OPEN_SLOTS) {
+            throw new IllegalArgumentException("Between 1 and " + MAX_OPEN_SLOTS + " open slots are required");
+        }
+        int limit = Math.max(1, Math.min(topN, maxResults));
+
+        Map<String, Player> players = region != null
+                ? recommendationService.resolvePlayers(region, openSlots.stream()
+                        .map(LobbyMemberDto::getSummonerName)
+                        .collect(Collectors.toList()))
+                : Map.of();
+
+        // One view per slot for lane matchups; all of them must index champions the same way
+        MatchupDataSource.MatchupView[] views = new MatchupDataSource.MatchupView[openSlots.size()];
+        for (int s = 0; s < views.length; s++) {
+            views[s] = matchupDataSource.view(riotApiConfig.getCurrentPatch(), recommendationRank,
+                    Positions.normalize(openSlots.get(s).getRole()));
+            if (views[s].snapshot() != views[0].snapshot()) {
+                throw new IllegalStateException("Champion data is reloading, try again");
+            }
+        }
+
+        Search search = new Search(views, resolve(views[0].snapshot(), allyChampions),
+                resolve(views[0].snapshot(), enemyChampions), resolve(views[0].snapshot(), bannedChampions),
+                openSlots, players, limit);
+        search.run();
+
+        List<CompositionDto> compositions = new ArrayList<>();
+        for (Found found : search.results()) {
+            List<CompositionPickDto> picks = new ArrayList<>();
+            for (int s = 0; s < openSlots.size(); s++) {
+                Champion champion = views[0].snapshot().byIndex(found.champions()[s]);
+                picks.add(new CompositionPickDto(openSlots.get(s).getRole(), openSlots.get(s).getSummonerName(),
+                        recommendationService.convertToDto(champion)));
+            }
+            compositions.add(new CompositionDto(picks, found.score() / openSlots.size()));
+        }
+        return new CompositionSearchResultDto(compositions, !search.timedOut, search.nodes.sum());
+    }
+
+    private static int[] resolve(ChampionRegistry.Snapshot snapshot, List<String> championNames) {
+        if (championNames == null) {
+            return new int[0];
+        }
+        return championNames.stream()
+                .mapToInt(snapshot::indexOfName)
+                .filter(index -> index >= 0)
+                .distinct()
+                .toArray();
+    }
+
+    /**
+     * A complete assignment; champions are compact indexes in input slot order
+     */
+    private record Found(int[] champions, double score) {
+    }
+
+    /**
+     * State of one search. Slots are reordered by candidate count so the most selective slot
+     * branches first; results are mapped back to input order.
+     */
+    private final class Search {
+        private final int slots;
+        private final int[] slotOrder;
+        private final int[][] champions;
+        private final double[][] unary;
+        private final double[] bestRemainingUnary;
+        private final double synergyWeight;
+        private final MatchupDataSource.MatchupView synergyView;
+        private final int limit;
+        private final long deadline;
+
+        private double maxPair;
+        private final PriorityQueue<Found> best = new PriorityQueue<>(Comparator.comparingDouble(Found::score));
+        private volatile double threshold = Double.NEGATIVE_INFINITY;
+        private volatile boolean timedOut;
+        private final LongAdder nodes = new LongAdder();
+
+        Search(MatchupDataSource.MatchupView[] views, int[] allies, int[] enemies, int[] bans,
+               List<LobbyMemberDto> openSlots, Map<String, Player> players, int limit) {
+            ChampionRegistry.Snapshot snapshot = views[0].snapshot();
+            this.slots = openSlots.size();
+            this.synergyView = views[0];
+            this.limit = limit;
+            this.deadline = System.nanoTime() + timeBudgetMs * 1_000_000L;
+
+            // Each pick averages synergy over all of its allies: the locked ones and the other picks
+            int alliesPerPick = allies.length + slots - 1;
+            this.synergyWeight = alliesPerPick > 0 ? RecommendationScorer.SYNERGY_WEIGHT / alliesPerPick : 0.0;
+            double noAllySynergy = alliesPerPick > 0 ? 0.0 : RecommendationScorer.SYNERGY_WEIGHT * RecommendationScorer.NEUTRAL;
+
+            boolean[] taken = new boolean[snapshot.size()];
+            for (int[] indexes : new int[][] {allies, enemies, bans}) {
+                for (int index : indexes) {
+                    taken[index] = true;
+                }
+            }
+
+            int[][] slotChampions = new int[slots][];
+            double[][] slotUnary = new double[slots][];
+            for (int s = 0; s < slots; s++) {
+                LobbyMemberDto slot = openSlots.get(s);
+                Player player = slot.getSummonerName() != null ? players.get(slot.getSummonerName()) : null;
+                double[] comfort = comfortProfileService.profile(player, snapshot).comfort();
+
+                List<double[]> scored = new ArrayList<>();
+                for (Champion champion : roleIndexService.candidates(slot.getRole()).champions()) {
+                    int index = snapshot.indexOf(champion.getChampionId());
+                    if (index < 0 || taken[index]) {
+                        continue;
+                    }
+                    double score = RecommendationScorer.COMFORT_WEIGHT * comfort[index]
+                            + RecommendationScorer.MATCHUP_WEIGHT * matchup(views[s], index, enemies)
+                            + RecommendationScorer.META_WEIGHT * RecommendationScorer.meta(champion)
+                            + noAllySynergy;
+                    for (int ally : allies) {
+                        score += synergyWeight * synergy(index, ally);
+                    }
+                    scored.add(new double[] {index, score});
+                }
+
+                // Keep the best candidates, ordered by their own score so weaker ones can be cut early
+                scored.sort((a, b) -> Double.compare(b[1], a[1]));
+                int kept = Math.min(scored.size(), maxCandidatesPerSlot);
+                slotChampions[s] = new int[kept];
+                slotUnary[s] = new double[kept];
+                for (int i = 0; i < kept; i++) {
+                    slotChampions[s][i] = (int) scored.get(i)[0];
+                    slotUnary[s][i] = scored.get(i)[1];
+                }
+            }
+
+            this.slotOrder = IntStream.range(0, slots).boxed()
+                    .sorted(Comparator.comparingInt(s -> slotChampions[s].length))
+                    .mapToInt(Integer::intValue)
+                    .toArray();
+            this.champions = new int[slots][];
+            this.unary = new double[slots][];
+            for (int depth = 0; depth < slots; depth++) {
+                champions[depth] = slotChampions[slotOrder[depth]];
+                unary[depth] = slotUnary[slotOrder[depth]];
+            }
+
+            this.bestRemainingUnary = new double[slots + 1];
+            for (int depth = slots - 1; depth >= 0; depth--) {
+                bestRemainingUnary[depth] = bestRemainingUnary[depth + 1]
+                        + (unary[depth].length > 0 ? unary[depth][0] : Double.NEGATIVE_INFINITY);
+            }
+
+            this.maxPair = 0.0;
+            for (int a = 0; a < slots; a++) {
+                for (int b = a + 1; b < slots; b++) {
+                    for (int x : champions[a]) {
+                        for (int y : champions[b]) {
+                            if (x != y) {
+                                maxPair = Math.max(maxPair, pair(x, y));
+                            }
+                        }
+                    }
+                }
+            }
+        }
+
+        void run() {
+            if (champions[0].length == 0 || bestRemainingUnary[0] == Double.NEGATIVE_INFINITY) {
+                return; // Some slot has no candidates left
+            }
+            try {
+                pool.submit(() -> IntStream.range(0, champions[0].length).parallel().forEach(i -> {
+                    int[] picks = new int[slots];
+                    picks[0] = champions[0][i];
+                    expand(picks, 1, unary[0][i]);
+                })).join();
+            } catch (RuntimeException e) {
+                logger.error("Error during composition search: {}", e.getMessage());
+                throw e;
+            }
+        }
+
+        /**
+         * @param picks  champions chosen for depths 0..depth-1
+         * @param exact  exact score of those picks, including the pair terms among them
+         */
+        private void expand(int[] picks, int depth, double exact) {
+            nodes.increment();
+            if (depth == slots) {
+                offer(picks, exact);
+                return;
+            }
+            if (timedOut || System.nanoTime() > deadline) {
+                timedOut = true;
+                return;
+            }
+
+            // Pairs not yet fixed once this depth is chosen: the new pick with each earlier pick, and all later ones
+            double laterPairs = maxPair * (pairs(slots) - pairs(depth + 1));
+            for (int i = 0; i < champions[depth].length; i++) {
+                double candidateUnary = unary[depth][i];
+                // Candidates are sorted by their own score, so once this bound fails every later one fails too
+                if (exact + candidateUnary + maxPair * depth + bestRemainingUnary[depth + 1] + laterPairs <= threshold) {
+                    return;
+                }
+
+                int champion = champions[depth][i];
+                if (contains(picks, depth, champion)) {
+                    continue;
+                }
+                double score = exact + candidateUnary;
+                for (int d = 0; d < depth; d++) {
+                    score += pair(champion, picks[d]);
+                }
+                if (score + bestRemainingUnary[depth + 1] + laterPairs <= threshold) {
+                    continue;
+                }
+
+                picks[depth] = champion;
+                expand(picks, depth + 1, score);
+            }
+        }
+
+        private void offer(int[] picks, double score) {
+            if (score <= threshold) {
+                return;
+            }
+            int[] inputOrder = new int[slots];
+            for (int depth = 0; depth < slots; depth++) {
+                inputOrder[slotOrder[depth]] = picks[depth];
+            }
+            synchronized (best) {
+                best.add(new Found(inputOrder, score));
+                if (best.size() > limit) {
+                    best.poll();
+                }
+                if (best.size() == limit) {
+                    threshold = best.peek().score();
+                }
+            }
+        }
+
+        List<Found> results() {
+            synchronized (best) {
+                List<Found> results = new ArrayList<>(best);
+                results.sort(Comparator.comparingDouble(Found::score).reversed());
+                return results;
+            }
+        }
+
+        /**
+         * Combined synergy term of two picks on each other
+         */
+        private double pair(int a, int b) {
+            return synergyWeight * (synergy(a, b) + synergy(b, a));
+        }
+
+        private double synergy(int champion, int ally) {
+            double winRate = synergyView.synergyWinRate(champion, ally);
+            return Double.isNaN(winRate) ? RecommendationScorer.NEUTRAL : winRate / 100.0;
+        }
+
+        private static int pairs(int n) {
+            return n * (n - 1) / 2;
+        }
+
+        private static boolean contains(int[] picks, int depth, int champion) {
+            for (int d = 0; d < depth; d++) {
+                if (picks[d] == champion) {
+                    return true;
+                }
+            }
+            return false;
+        }
+    }
+
+    /**
+     * Mean known win rate against the enemies on a 0-1 scale, neutral when nothing is known
+     */
+    private static double matchup(MatchupDataSource.MatchupView view, int index, int[] enemies) {
+        double total = 0.0;
+        int known = 0;
+        for (int enemy : enemies) {
+            double winRate = view.matchupWinRate(index, enemy);
+            if (!Double.isNaN(winRate)) {
+                total += winRate;
+                known++;
+            }
+        }
+        return known > 0 ? (total / known) / 100.0 : RecommendationScorer.NEUTRAL;
+    }
+}
@@ -0,0 +1,133 @@
+package com.penta.service;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+
+import java.util.Arrays;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Inverted matchup index: for each (patch, rank, role, enemy champion), the champions that
+ * beat it, best first.
+ *
+ * Counters are ranked by win rate against the enemy, smoothed towards 50% with
+ * counter.prior-games virtual games, and only pairs with at least
+ * recommendation.min-sample-games real games are listed. An entry is built from its matrix
+ * column on first use and rebuilt only after a flushed batch changes a cell in that column.
+ */
+@Service
+public class CounterPickIndex {
+
+    @Autowired
+    private MatchupMatrixStore matchupMatrixStore;
+
+    @Value("${recommendation.min-sample-games:30}")
+    private int minSampleGames;
+
+    @Value("${counter.prior-games:20}")
+    private int priorGames;
+
+    private record EntryKey(String patch, String rank, String role, int enemyChampionId) {
+    }
+
+    /**
+     * Counters to one enemy: compact indexes of snapshot with their smoothed win rates (0-1) and
+     * game counts, sorted by win rate descending. Shared; do not modify.
+     */
+    public record Counters(ChampionRegistry.Snapshot snapshot, int[] champions, double[] winRates, int[] games) {
+
+        public int size() {
+            return champions.length;
+        }
+    }
+
+    private record Entry(Counters counters, long builtAt) {
+    }
+
+    private final Map<EntryKey, Entry> entries = new ConcurrentHashMap<>();
+    // Version of the last change seen for each entry; an entry built before that version is stale
+    private final Map<EntryKey, Long> changedAt = new ConcurrentHashMap<>();
+    private final AtomicLong version = new AtomicLong();
+    private volatile long rebuiltAt;
+
+    @EventListener
+    public void onMatrixRebuilt(MatchupMatrixStore.Rebuilt event) {
+        rebuiltAt = version.incrementAndGet();
+        entries.clear();
+        changedAt.clear();
+    }
+
+    @EventListener
+    public void onMatchupsChanged(MatchupMatrixStore.MatchupsChanged event) {
+        long changed = version.incrementAndGet();
+        event.championIds().forEach((bucket, championIds) -> {
+            for (Integer championId : championIds) {
+                changedAt.put(new EntryKey(bucket.patch(), bucket.rank(), bucket.role(), championId), changed);
+            }
+        });
+    }
+
+    /**
+     * Counters to an enemy champion in one lane; empty when the champion or lane has no data
+     */
+    public Counters counters(String patch, String rank, String role, int enemyChampionId) {
+        EntryKey key = new EntryKey(patch, rank, role, enemyChampionId);
+        Entry entry = entries.get(key);
+        if (entry != null && entry.builtAt() >= Math.max(rebuiltAt, changedAt.getOrDefault(key, 0L))) {
+            return entry.counters();
+        }
+
+        long builtAt = version.get();
+        Counters counters = build(patch, rank, role, enemyChampionId);
+        entries.put(key, new Entry(counters, builtAt));
+        return counters;
+    }
+
+    private Counters build(String patch, String rank, String role, int enemyChampionId) {
+        MatchupMatrixStore.Slice slice = matchupMatrixStore.slice(patch, rank, role);
+        ChampionRegistry.Snapshot snapshot = slice.snapshot();
+        MatchupMatrixStore.Matrix matrix = slice.matchups();
+        int enemy = snapshot.indexOf(enemyChampionId);
+        if (enemy < 0 || matrix.size() != snapshot.size()) {
+            return new Counters(snapshot, new int[0], new double[0], new int[0]);
+        }
+
+        int n = 0;
+        int[] champions = new int[snapshot.size()];
+        double[] winRates = new double[snapshot.size()];
+        int[] games = new int[snapshot.size()];
+        for (int i = 0; i < snapshot.size(); i++) {
+            int cellGames = matrix.games(i, enemy);
+            if (i == enemy || cellGames < minSampleGames) {
+                continue;
+            }
+            champions[n] = i;
+            winRates[n] = (matrix.wins(i, enemy) + 0.5 * priorGames) / (cellGames + priorGames);
+            games[n] = cellGames;
+            n++;
+        }
+
+        // Insertion sort by win rate descending; a column holds a few hundred champions at most
+        for (int i = 1; i < n; i++) {
+            int champion = champions[i];
+            double winRate = winRates[i];
+            int cellGames = games[i];
+            int j = i - 1;
+            while (j >= 0 && winRates[j] < winRate) {
+                champions[j + 1] = champions[j];
+                winRates[j + 1] = winRates[j];
+                games[j + 1] = games[j];
+                j--;
+            }
+            champions[j + 1] = champion;
+            winRates[j + 1] = winRate;
+            games[j + 1] = cellGames;
+        }
+
+        return new Counters(snapshot, Arrays.copyOf(champions, n), Arrays.copyOf(winRates, n), Arrays.copyOf(games, n));
+    }
+}
@@ -3,13 +3,20 @@ package com.penta.service;
 import com.penta.model.*;
 import com.penta.repository.*;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.scheduling.annotation.Async;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import reactor.core.publisher.Flux;
 
 import java.util.Map;
+import java.util.Set;
+import java.util.function.Function;
 import java.util.stream.Collectors;
 import java.time.LocalDateTime;
+import java.util.ArrayList;
 import java.util.List;
 import java.util.Optional;
 import java.util.concurrent.CompletableFuture;
@@ -20,12 +27,18 @@ public class DataCollectionService {
     @Autowired
     private RiotApiService riotApiService;
     
+    @Autowired
+    private ReactiveRiotApiService reactiveRiotApiService;
+    
     @Autowired
     private DataProcessingService dataProcessingService;
     
     @Autowired
     private ChampionRepository championRepository;
     
+    @Autowired
+    private ChampionRegistry championRegistry;
+    
     @Autowired
     private MatchRepository matchRepository;
     
@@ -34,9 +47,18 @@ public class DataCollectionService {
 
     @Autowired
     private PlayerChampionRepository playerChampionRepository;
+    
+    @Autowired
+    private RecommendationCache recommendationCache;
+    
+    @Autowired
+    private ComfortProfileService comfortProfileService;
 
     @Autowired
     private PlayerMatchRepository playerMatchRepository;    
+    
+    @Value("${riot.api.match-fetch-concurrency:8}")
+    private int matchFetchConcurrency;
         
     /**
      * Collect and process data for a specific player
@@ -54,15 +76,8 @@ public class DataCollectionService {
             Player player = playerOpt.get();
             playerRepository.save(player);
             
-            // Get match history
-            List<String> matchIds = riotApiService.getMatchHistory(player.getPuuid(), region, matchCount);
-            
-            // Process each match
-            for (String matchId : matchIds) {
-                processMatch(matchId, region);
-                // Create PlayerMatch records for this player
-                createPlayerMatchRecords(player, matchId);
-            }
+            // Fetch and process the match history
+            collectMatches(player, region, matchCount);
             
             // Create/update PlayerChampion records
             updatePlayerChampionStats(player);
@@ -109,12 +124,7 @@ public class DataCollectionService {
             
             playerRepository.save(player);
             
-            List<String> matchIds = riotApiService.getMatchHistory(player.getPuuid(), region, matchCount);
-            
-            for (String matchId : matchIds) {
-                processMatch(matchId, region);
-                createPlayerMatchRecords(player, matchId);
-            }
+            collectMatches(player, region, matchCount);
             
             updatePlayerChampionStats(player);
             
@@ -126,50 +136,87 @@ public class DataCollectionService {
         }
     }
     
-    private void createPlayerMatchRecords(Player player, String matchId) {
-        Optional<Match> matchOpt = matchRepository.findByMatchId(matchId);
-        if (matchOpt.isEmpty()) return;
+    /**
+     * Fetch a player's recent matches concurrently, then persist and aggregate them as one batch.
+     * Riot calls go through the rate limiter, so the fan-out only queues when quota runs out.
+     */
+    private void collectMatches(Player player, String region, int matchCount) {
+        List<String> matchIds = riotApiService.getMatchHistory(player.getPuuid(), region, matchCount);
+        if (matchIds.isEmpty()) {
+            return;
+        }
         
-        Match match = matchOpt.get();
+        // Matches already stored don't need another Riot call
+        Map<String, Match> matchesById = matchRepository.findByMatchIdIn(matchIds).stream()
+            .collect(Collectors.toMap(Match::getMatchId, Function.identity()));
         
-        Optional<PlayerMatch> existingPlayerMatch = playerMatchRepository
-            .findByPlayerAndMatchId(player, matchId);
+        List<String> missingIds = matchIds.stream()
+            .filter(matchId -> !matchesById.containsKey(matchId))
+            .collect(Collectors.toList());
         
-        if (existingPlayerMatch.isPresent()) {
-            return;
+        List<Match> fetchedMatches = Flux.fromIterable(missingIds)
+            .flatMap(matchId -> reactiveRiotApiService.getMatchDetails(matchId, region), matchFetchConcurrency)
+            .collectList()
+            .block();
+        
+        if (fetchedMatches != null && !fetchedMatches.isEmpty()) {
+            matchRepository.saveAll(fetchedMatches);
+            for (Match match : fetchedMatches) {
+                dataProcessingService.processMatchData(match);
+                matchesById.put(match.getMatchId(), match);
+            }
         }
         
-        // Find the participant that matches this player
-        match.getParticipants().stream()
-            .filter(p -> p.getPuuid().equals(player.getPuuid()))
-            .findFirst()
-            .ifPresent(participant -> {
-                PlayerMatch pm = new PlayerMatch();
-                pm.setPlayer(player);
-                pm.setChampion(participant.getChampion());
-                pm.setMatch(match);
-                pm.setMatchId(matchId);
-                pm.setGameMode(match.getGameMode());
-                pm.setGameType(match.getGameType());
-                pm.setGameStartTime(match.getGameStartTime());
-                pm.setGameDuration(match.getGameDuration());
-                pm.setKills(participant.getKills());
-                pm.setDeaths(participant.getDeaths());
-                pm.setAssists(participant.getAssists());
-                pm.setCs(participant.getCs());
-                pm.setWon(participant.getWon());
-                pm.setLane(participant.getIndividualPosition());
-                pm.setRole(participant.getTeamPosition());
-                pm.setTeamId(participant.getTeamId());
-                pm.setDamageDealt(participant.getDamageDealt());
-                pm.setDamageTaken(participant.getDamageTaken());
-                pm.setGoldEarned(participant.getGoldEarned());
-                pm.setVisionScore(participant.getVisionScore());
-                pm.setWardsPlaced(participant.getWardsPlaced());
-                pm.setWardsKilled(participant.getWardsKilled());
-                
-                playerMatchRepository.save(pm);
-            });
+        createPlayerMatchRecords(player, matchIds, matchesById);
+    }
+    
+    private void createPlayerMatchRecords(Player player, List<String> matchIds, Map<String, Match> matchesById) {
+        Set<String> recordedMatchIds = playerMatchRepository.findByPlayerAndMatchIdIn(player, matchIds).stream()
+            .map(PlayerMatch::getMatchId)
+            .collect(Collectors.toSet());
+        
+        List<PlayerMatch> newRecords = new ArrayList<>();
+        for (String matchId : matchIds) {
+            Match match = matchesById.get(matchId);
+            if (match == null || recordedMatchIds.contains(matchId)) {
+                continue;
+            }
+            
+            // Find the participant that matches this player
+            match.getParticipants().stream()
+                .filter(p -> p.getPuuid().equals(player.getPuuid()))
+                .findFirst()
+                .ifPresent(participant -> newRecords.add(toPlayerMatch(player, match, participant)));
+        }
+        
+        playerMatchRepository.saveAll(newRecords);
+    }
+    
+    private PlayerMatch toPlayerMatch(Player player, Match match, MatchParticipant participant) {
+        PlayerMatch pm = new PlayerMatch();
+        pm.setPlayer(player);
+        pm.setChampion(participant.getChampion());
+        pm.setMatch(match);
+        pm.setMatchId(match.getMatchId());
+        pm.setGameMode(match.getGameMode());
+        pm.setGameType(match.getGameType());
+        pm.setGameStartTime(match.getGameStartTime());
+        pm.setGameDuration(match.getGameDuration());
+        pm.setKills(participant.getKills());
+        pm.setDeaths(participant.getDeaths());
+        pm.setAssists(participant.getAssists());
+        pm.setCs(participant.getCs());
+        pm.setWon(participant.getWon());
+        pm.setLane(participant.getIndividualPosition());
+        pm.setRole(participant.getTeamPosition());
+        pm.setTeamId(participant.getTeamId());
+        pm.setDamageDealt(participant.getDamageDealt());
+        pm.setDamageTaken(participant.getDamageTaken());
+        pm.setGoldEarned(participant.getGoldEarned());
+        pm.setVisionScore(participant.getVisionScore());
+        pm.setWardsPlaced(participant.getWardsPlaced());
+        pm.setWardsKilled(participant.getWardsKilled());
+        return pm;
     }
 
     private void updatePlayerChampionStats(Player player) {
@@ -199,6 +246,16 @@ public class DataCollectionService {
             
             playerChampionRepository.save(pc);
         });
+        
+        // Rebuild the comfort profile; cached recommendations for this player used the old stats
+        String puuid = player.getPuuid();
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                comfortProfileService.refresh(puuid);
+                recommendationCache.invalidatePlayer(puuid);
+            }
+        });
     }
     
     /**
@@ -257,12 +314,18 @@ public class DataCollectionService {
         try {
             List<Champion> champions = riotApiService.getAllChampions();
             
-            for (Champion champion : champions) {
-                Optional<Champion> existingChampion = championRepository.findByChampionId(champion.getChampionId());
-                if (existingChampion.isEmpty()) {
-                    championRepository.save(champion);
+            List<Champion> newChampions = champions.stream()
+                    .filter(champion -> championRegistry.findByChampionId(champion.getChampionId()).isEmpty())
+                    .collect(Collectors.toList());
+            championRepository.saveAll(newChampions);
+            
+            // Publish the new champion set once the rows are committed
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    championRegistry.reload();
                 }
-            }
+            });
             
         } catch (Exception e) {
             throw new RuntimeException("Error initializing champion data: " + e.getMessage(), e);
@@ -286,24 +349,35 @@ public class DataCollectionService {
     }
     
     /**
-     * Update champion statistics from recent matches
+     * Aggregate recent matches of a patch that have not been counted yet.
+     * Matches already in the aggregation ledger are skipped, so re-runs are no-ops and an
+     * interrupted run resumes where it stopped.
      */
-    @Transactional
     public void updateChampionStatistics(String patch, String rank) {
         try {
             LocalDateTime since = LocalDateTime.now().minusDays(7);
-            List<Match> recentMatches = matchRepository.findRecentMatches(since);
+            List<Match> pendingMatches = matchRepository.findRecentUnaggregatedMatches(
+                    since, patch, StatsDeltaBuffer.Kind.values().length);
             
-            for (Match match : recentMatches) {
-                if (match.getGameVersion().startsWith(patch)) {
-                    dataProcessingService.processMatchData(match);
-                }
+            for (Match match : pendingMatches) {
+                dataProcessingService.processMatchData(match);
             }
         } catch (Exception e) {
             throw new RuntimeException("Error updating champion statistics: " + e.getMessage(), e);
         }
     }
     
+    /**
+     * Throw away all aggregates for a patch and recompute them from every stored match
+     */
+    public int rebuildChampionStatistics(String patch) {
+        try {
+            return dataProcessingService.rebuildPatch(patch);
+        } catch (Exception e) {
+            throw new RuntimeException("Error rebuilding champion statistics: " + e.getMessage(), e);
+        }
+    }
+    
     /**
      * Get data collection status
      */
@@ -2,19 +2,49 @@ package com.penta.service;
 
 import com.penta.model.*;
 import com.penta.repository.*;
+import com.penta.service.StatsDeltaBuffer.Batch;
+import com.penta.service.StatsDeltaBuffer.Contribution;
+import com.penta.service.StatsDeltaBuffer.Delta;
+import com.penta.service.StatsDeltaBuffer.Key;
+import com.penta.service.StatsDeltaBuffer.Kind;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Service;
-import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
 
 import java.time.LocalDateTime;
 import java.util.*;
+import java.util.concurrent.ForkJoinPool;
 import java.util.stream.Collectors;
 
+/**
+ * Turns ingested matches into champion, matchup and synergy aggregates.
+ *
+ * Increments are collected in a StatsDeltaBuffer and written in batches, so the
+ * aggregate tables trail ingestion by at most one flush interval. Each row is written
+ * with a single MERGE that adds to its counters, so concurrent writers never lose updates.
+ *
+ * Every match's contribution to each aggregate kind is recorded in the match_aggregations
+ * ledger in the same transaction as its counters, so reprocessing a match is a no-op.
+ */
 @Service
 public class DataProcessingService {
     
+    private static final Logger logger = LoggerFactory.getLogger(DataProcessingService.class);
+    
     @Autowired
-    private ChampionRepository championRepository;
+    private ChampionRegistry championRegistry;
     
     @Autowired
     private ChampionStatsRepository championStatsRepository;
@@ -25,63 +55,230 @@ public class DataProcessingService {
     @Autowired
     private ChampionSynergyRepository championSynergyRepository;
     
+    @Autowired
+    private MatchAggregationRepository matchAggregationRepository;
+    
+    @Autowired
+    private MatchRepository matchRepository;
+    
+    @Autowired
+    private MatchupMatrixStore matchupMatrixStore;
+    
+    @Autowired
+    private RoleIndexService roleIndexService;
+    
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+    
+    @Value("${stats.buffer.flush-threshold:2000}")
+    private int flushThreshold;
+    
+    @Value("${stats.buffer.max-keys:20000}")
+    private int maxKeys;
+    
+    @Value("${stats.buffer.max-flush-attempts:5}")
+    private int maxFlushAttempts;
+    
+    @Value("${stats.rebuild.parallelism:4}")
+    private int rebuildParallelism;
+    
+    @Value("${stats.rebuild.batch-size:200}")
+    private int rebuildBatchSize;
+    
+    private StatsDeltaBuffer statsBuffer;
+    private TransactionTemplate flushTransaction;
+    
+    @PostConstruct
+    public void initStatsBuffer() {
+        statsBuffer = new StatsDeltaBuffer(flushThreshold, maxKeys, maxFlushAttempts, this::applyDeltas);
+        // Flushes can be triggered from inside a caller's transaction; keep them independent of it
+        flushTransaction = new TransactionTemplate(transactionManager);
+        flushTransaction.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+    }
+    
     /**
-     * Process match data and update champion statistics
+     * Process match data and buffer the resulting champion statistics.
+     * Aggregate kinds this match already contributed to are skipped.
      */
-    @Transactional
     public void processMatchData(Match match) {
         String patch = extractPatchFromVersion(match.getGameVersion());
         String rank = determineRankFromQueue(match.getQueueId());
         
-        // Process champion statistics
-        processChampionStats(match, patch, rank);
+        List<Contribution> contributions = claimContributions(match.getMatchId(), patch);
+        if (contributions.isEmpty()) {
+            return;
+        }
         
-        // Process matchup data
-        processMatchupData(match, patch, rank);
+        Map<Key, Delta> deltas = new HashMap<>();
+        try {
+            for (Contribution contribution : contributions) {
+                switch (contribution.kind()) {
+                    case CHAMPION -> processChampionStats(match, patch, rank, deltas);
+                    case MATCHUP -> processMatchupData(match, patch, rank, deltas);
+                    case SYNERGY -> processSynergyData(match, patch, rank, deltas);
+                }
+            }
+        } catch (RuntimeException e) {
+            statsBuffer.release(contributions);
+            throw e;
+        }
         
-        // Process synergy data
-        processSynergyData(match, patch, rank);
+        // Only count matches whose ingestion actually commits
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCompletion(int status) {
+                    if (status == STATUS_COMMITTED) {
+                        statsBuffer.record(contributions, deltas);
+                    } else {
+                        statsBuffer.release(contributions);
+                    }
+                }
+            });
+        } else {
+            statsBuffer.record(contributions, deltas);
+        }
+    }
+    
+    /**
+     * Claim every aggregate kind this match has not contributed to yet.
+     * Claiming before reading the ledger means a concurrent flush cannot slip between the two.
+     */
+    private List<Contribution> claimContributions(String matchId, String patch) {
+        List<Contribution> claimed = new ArrayList<>();
+        for (Kind kind : Kind.values()) {
+            Contribution contribution = new Contribution(matchId, kind, patch);
+            if (statsBuffer.claim(contribution)) {
+                claimed.add(contribution);
+            }
+        }
+        if (claimed.isEmpty()) {
+            return claimed;
+        }
+        
+        Set<String> recorded = new HashSet<>(matchAggregationRepository.findKindsByMatchId(matchId));
+        List<Contribution> alreadyRecorded = claimed.stream()
+                .filter(contribution -> recorded.contains(contribution.kind().name()))
+                .collect(Collectors.toList());
+        statsBuffer.release(alreadyRecorded);
+        claimed.removeAll(alreadyRecorded);
+        return claimed;
+    }
+    
+    /**
+     * Discard every aggregate and ledger row for a patch and recompute them from stored matches in parallel
+     *
+     * @return number of matches reprocessed
+     */
+    public int rebuildPatch(String patch) {
+        flushStatsOrThrow();
+        flushTransaction.executeWithoutResult(status -> {
+            championStatsRepository.deleteByPatch(patch);
+            championMatchupRepository.deleteByPatch(patch);
+            championSynergyRepository.deleteByPatch(patch);
+            matchAggregationRepository.deleteByPatch(patch);
+        });
+        matchupMatrixStore.rebuild();
+        
+        List<Long> matchIds = matchRepository.findIdsByPatch(patch);
+        List<List<Long>> batches = new ArrayList<>();
+        for (int i = 0; i < matchIds.size(); i += rebuildBatchSize) {
+            batches.add(matchIds.subList(i, Math.min(i + rebuildBatchSize, matchIds.size())));
+        }
+        
+        logger.info("Rebuilding aggregates for patch {} from {} matches", patch, matchIds.size());
+        ForkJoinPool pool = new ForkJoinPool(rebuildParallelism);
+        try {
+            pool.submit(() -> batches.parallelStream().forEach(batch ->
+                    matchRepository.findWithParticipantsByIdIn(batch).forEach(this::processMatchData)))
+                    .join();
+        } finally {
+            pool.shutdown();
+        }
+        
+        flushStatsOrThrow();
+        return matchIds.size();
+    }
+    
+    private void flushStatsOrThrow() {
+        try {
+            statsBuffer.flush();
+        } catch (RuntimeException e) {
+            throw new RuntimeException("Error flushing buffered stats: " + e.getMessage(), e);
+        }
     }
     
     /**
-     * Calculate and update champion statistics
+     * Write buffered statistics to the database
      */
-    private void processChampionStats(Match match, String patch, String rank) {
+    @Scheduled(fixedDelayString = "${stats.buffer.flush-interval-ms:5000}")
+    public void flushStats() {
+        try {
+            int flushed = statsBuffer.flush();
+            if (flushed > 0) {
+                logger.debug("Flushed {} buffered stat rows", flushed);
+            }
+        } catch (Exception e) {
+            logger.error("Error flushing buffered stats, will retry: {}", e.getMessage());
+        }
+    }
+    
+    /**
+     * Seed running totals on stat rows that predate them, once the schema is up to date
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void backfillRunningTotals() {
+        try {
+            Integer updated = flushTransaction.execute(status -> championStatsRepository.backfillRunningTotals());
+            if (updated != null && updated > 0) {
+                logger.info("Backfilled running totals on {} champion stat rows", updated);
+            }
+        } catch (Exception e) {
+            logger.error("Error backfilling champion stat running totals: {}", e.getMessage());
+        }
+    }
+    
+    @PreDestroy
+    public void flushOnShutdown() {
+        logger.info("Flushing {} buffered stat rows before shutdown", statsBuffer.size());
+        flushStats();
+    }
+    
+    /**
+     * Calculate champion statistics deltas
+     */
+    private void processChampionStats(Match match, String patch, String rank, Map<Key, Delta> deltas) {
         Map<Integer, ChampionGameStats> championStats = new HashMap<>();
         
         // Aggregate stats for each champion in the match
         for (MatchParticipant participant : match.getParticipants()) {
             int championId = participant.getChampion().getChampionId();
-            String role = participant.getIndividualPosition();
+            String role = Positions.stored(participant.getIndividualPosition());
             
             championStats.computeIfAbsent(championId, k -> new ChampionGameStats())
                     .addGame(participant, role);
         }
         
-        // Update champion statistics
         for (Map.Entry<Integer, ChampionGameStats> entry : championStats.entrySet()) {
             int championId = entry.getKey();
             ChampionGameStats stats = entry.getValue();
             
-            Optional<Champion> championOpt = championRepository.findByChampionId(championId);
-            if (championOpt.isPresent()) {
-                Champion champion = championOpt.get();
-                
-                // Update overall champion stats
-                updateChampionStats(champion, stats, patch, rank, "ALL");
+            if (championRegistry.findByChampionId(championId).isPresent()) {
+                // Overall champion stats
+                deltas.merge(new Key(Kind.CHAMPION, championId, 0, patch, rank, "ALL"), stats.toDelta(), Delta::add);
                 
-                // Update role-specific stats
+                // Role-specific stats
                 for (String role : stats.getRoles()) {
-                    updateChampionStats(champion, stats, patch, rank, role);
+                    deltas.merge(new Key(Kind.CHAMPION, championId, 0, patch, rank, role), stats.toDelta(), Delta::add);
                 }
             }
         }
     }
     
     /**
-     * Calculate and update matchup data
+     * Calculate matchup deltas
      */
-    private void processMatchupData(Match match, String patch, String rank) {
+    private void processMatchupData(Match match, String patch, String rank, Map<Key, Delta> deltas) {
         List<MatchParticipant> participants = match.getParticipants();
         
         // Compare all champion pairs in the match
@@ -91,19 +288,22 @@ public class DataProcessingService {
                 MatchParticipant p2 = participants.get(j);
                 
                 // Only compare champions in the same role
-                if (p1.getIndividualPosition().equals(p2.getIndividualPosition()) && 
+                String role = Positions.stored(p1.getIndividualPosition());
+                if (role.equals(Positions.stored(p2.getIndividualPosition())) && 
                     !p1.getTeamId().equals(p2.getTeamId())) {
                     
-                    updateMatchupStats(p1, p2, patch, rank);
+                    Key key = new Key(Kind.MATCHUP, p1.getChampion().getChampionId(), p2.getChampion().getChampionId(),
+                            patch, rank, role);
+                    deltas.merge(key, Delta.result(p1.getWon()), Delta::add);
                 }
             }
         }
     }
     
     /**
-     * Calculate and update synergy data
+     * Calculate synergy deltas
      */
-    private void processSynergyData(Match match, String patch, String rank) {
+    private void processSynergyData(Match match, String patch, String rank, Map<Key, Delta> deltas) {
         Map<Integer, List<MatchParticipant>> teams = match.getParticipants().stream()
                 .collect(Collectors.groupingBy(MatchParticipant::getTeamId));
         
@@ -114,133 +314,69 @@ public class DataProcessingService {
                     MatchParticipant p1 = team.get(i);
                     MatchParticipant p2 = team.get(j);
                     
-                    updateSynergyStats(p1, p2, patch, rank);
+                    Key key = new Key(Kind.SYNERGY, p1.getChampion().getChampionId(), p2.getChampion().getChampionId(),
+                            patch, rank, null);
+                    deltas.merge(key, Delta.result(p1.getWon()), Delta::add);
                 }
             }
         }
     }
     
-    private void updateChampionStats(Champion champion, ChampionGameStats stats, String patch, String rank, String role) {
-        Optional<ChampionStats> existingStatsOpt = championStatsRepository
-                .findByChampionAndPatchAndRankAndRole(champion, patch, rank, role);
+    /**
+     * Apply one flushed batch and its ledger rows in a single transaction, then mirror it in the matrix store
+     */
+    private void applyDeltas(Batch batch) {
+        matchupMatrixStore.applyCommitted(() -> flushTransaction.executeWithoutResult(status -> {
+            batch.deltas().forEach(this::applyDelta);
+            
+            LocalDateTime now = LocalDateTime.now();
+            matchAggregationRepository.saveAll(batch.contributions().stream()
+                    .map(contribution -> new MatchAggregation(null, contribution.matchId(),
+                            contribution.kind().name(), contribution.patch(), now))
+                    .collect(Collectors.toList()));
+        }), batch.deltas());
         
-        ChampionStats championStats;
-        if (existingStatsOpt.isPresent()) {
-            championStats = existingStatsOpt.get();
-            championStats.setTotalGames(championStats.getTotalGames() + stats.getTotalGames());
-            championStats.setWins(championStats.getWins() + stats.getWins());
-            championStats.setLosses(championStats.getLosses() + stats.getLosses());
-        } else {
-            championStats = new ChampionStats();
-            championStats.setChampion(champion);
-            championStats.setPatch(patch);
-            championStats.setRank(rank);
-            championStats.setRole(role);
-            championStats.setTotalGames(stats.getTotalGames());
-            championStats.setWins(stats.getWins());
-            championStats.setLosses(stats.getLosses());
-            championStats.setBanRate(0.0);
-            championStats.setPickRate(0.0);
+        if (batch.deltas().keySet().stream().anyMatch(key -> key.kind() == Kind.CHAMPION)) {
+            roleIndexService.markDirty();
         }
-        
-        // Recalculate averages
-        championStats.setWinRate((double) championStats.getWins() / championStats.getTotalGames() * 100);
-        championStats.setAverageKills(stats.getAverageKills());
-        championStats.setAverageDeaths(stats.getAverageDeaths());
-        championStats.setAverageAssists(stats.getAverageAssists());
-        championStats.setAverageCs(stats.getAverageCs());
-        championStats.setAverageGold(stats.getAverageGold());
-        championStats.setAverageDamage(stats.getAverageDamage());
-        championStats.setAverageVisionScore(stats.getAverageVisionScore());
-        championStats.setLastUpdated(LocalDateTime.now());
-        
-        // Calculate tier based on win rate and other factors
-        championStats.setTier(calculateTier(championStats));
-        
-        championStatsRepository.save(championStats);
     }
     
-    private void updateMatchupStats(MatchParticipant p1, MatchParticipant p2, String patch, String rank) {
-        Champion champion1 = p1.getChampion();
-        Champion champion2 = p2.getChampion();
-        String role = p1.getIndividualPosition();
-        
-        Optional<ChampionMatchup> existingMatchupOpt = championMatchupRepository
-                .findByChampion1AndChampion2AndPatchAndRankAndRole(champion1, champion2, patch, rank, role);
-        
-        ChampionMatchup matchup;
-        if (existingMatchupOpt.isPresent()) {
-            matchup = existingMatchupOpt.get();
-        } else {
-            matchup = new ChampionMatchup();
-            matchup.setChampion1(champion1);
-            matchup.setChampion2(champion2);
-            matchup.setPatch(patch);
-            matchup.setRank(rank);
-            matchup.setRole(role);
-            matchup.setTotalGames(0);
-            matchup.setChampion1Wins(0);
-            matchup.setChampion2Wins(0);
+    private void applyDelta(Key key, Delta delta) {
+        Optional<Champion> champion1Opt = championRegistry.findByChampionId(key.champion1Id());
+        if (champion1Opt.isEmpty()) {
+            return;
         }
+        Champion champion1 = champion1Opt.get();
         
-        matchup.setTotalGames(matchup.getTotalGames() + 1);
-        
-        if (p1.getWon()) {
-            matchup.setChampion1Wins(matchup.getChampion1Wins() + 1);
-        } else {
-            matchup.setChampion2Wins(matchup.getChampion2Wins() + 1);
+        switch (key.kind()) {
+            case CHAMPION -> updateChampionStats(champion1, delta, key.patch(), key.rank(), key.role());
+            case MATCHUP -> championRegistry.findByChampionId(key.champion2Id())
+                    .ifPresent(champion2 -> updateMatchupStats(champion1, champion2, delta, key.patch(), key.rank(), key.role()));
+            case SYNERGY -> championRegistry.findByChampionId(key.champion2Id())
+                    .ifPresent(champion2 -> updateSynergyStats(champion1, champion2, delta, key.patch(), key.rank()));
         }
-        
-        matchup.setChampion1WinRate((double) matchup.getChampion1Wins() / matchup.getTotalGames() * 100);
-        matchup.setChampion2WinRate((double) matchup.getChampion2Wins() / matchup.getTotalGames() * 100);
-        
-        // Calculate matchup score (-1 to 1)
-        double winRateDiff = matchup.getChampion1WinRate() - 50.0;
-        matchup.setMatchupScore(winRateDiff / 50.0); // Normalize to -1 to 1
-        
-        matchup.setLastUpdated(LocalDateTime.now());
-        championMatchupRepository.save(matchup);
     }
     
-    private void updateSynergyStats(MatchParticipant p1, MatchParticipant p2, String patch, String rank) {
-        Champion champion1 = p1.getChampion();
-        Champion champion2 = p2.getChampion();
-        
-        Optional<ChampionSynergy> existingSynergyOpt = championSynergyRepository
-                .findByChampion1AndChampion2AndPatchAndRank(champion1, champion2, patch, rank);
-        
-        ChampionSynergy synergy;
-        if (existingSynergyOpt.isPresent()) {
-            synergy = existingSynergyOpt.get();
-        } else {
-            synergy = new ChampionSynergy();
-            synergy.setChampion1(champion1);
-            synergy.setChampion2(champion2);
-            synergy.setPatch(patch);
-            synergy.setRank(rank);
-            synergy.setTotalGames(0);
-            synergy.setWins(0);
-            synergy.setLosses(0);
-            synergy.setSynergyType("TEAM");
-        }
-        
-        synergy.setTotalGames(synergy.getTotalGames() + 1);
-        
-        if (p1.getWon()) {
-            synergy.setWins(synergy.getWins() + 1);
-        } else {
-            synergy.setLosses(synergy.getLosses() + 1);
-        }
-        
-        synergy.setWinRate((double) synergy.getWins() / synergy.getTotalGames() * 100);
-        
-        // Calculate synergy score (0 to 1)
-        double baseWinRate = 50.0; // Expected win rate
-        double synergyBonus = synergy.getWinRate() - baseWinRate;
-        synergy.setSynergyScore(Math.max(0, Math.min(1, synergyBonus / 50.0 + 0.5))); // Normalize to 0-1
-        
-        synergy.setLastUpdated(LocalDateTime.now());
-        championSynergyRepository.save(synergy);
+    private void updateChampionStats(Champion champion, Delta delta, String patch, String rank, String role) {
+        championStatsRepository.mergeIncrement(champion.getId(), patch, rank, role,
+                delta.getGames(), delta.getWins(), delta.getLosses(),
+                delta.getKills(), delta.getKillsSquared(),
+                delta.getDeaths(), delta.getDeathsSquared(),
+                delta.getAssists(), delta.getAssistsSquared(),
+                delta.getCs(), delta.getCsSquared(),
+                delta.getGold(), delta.getGoldSquared(),
+                delta.getDamage(), delta.getDamageSquared(),
+                delta.getVisionScore(), delta.getVisionScoreSquared());
+    }
+    
+    private void updateMatchupStats(Champion champion1, Champion champion2, Delta delta, String patch, String rank, String role) {
+        championMatchupRepository.mergeIncrement(champion1.getId(), champion2.getId(), patch, rank, role,
+                delta.getGames(), delta.getWins(), delta.getLosses());
+    }
+    
+    private void updateSynergyStats(Champion champion1, Champion champion2, Delta delta, String patch, String rank) {
+        championSynergyRepository.mergeIncrement(champion1.getId(), champion2.getId(), patch, rank,
+                delta.getGames(), delta.getWins(), delta.getLosses());
     }
     
     private String extractPatchFromVersion(String gameVersion) {
@@ -266,16 +402,6 @@ public class DataProcessingService {
         };
     }
     
-    private int calculateTier(ChampionStats stats) {
-        // Simple tier calculation based on win rate
-        double winRate = stats.getWinRate();
-        if (winRate >= 55) return 5; // S tier
-        if (winRate >= 52) return 4; // A tier
-        if (winRate >= 49) return 3; // B tier
-        if (winRate >= 46) return 2; // C tier
-        return 1; // D tier
-    }
-    
     // Helper class for aggregating champion game statistics
     private static class ChampionGameStats {
         private int totalGames = 0;
@@ -288,6 +414,13 @@ public class DataProcessingService {
         private double totalGold = 0;
         private double totalDamage = 0;
         private double totalVisionScore = 0;
+        private double killsSquared = 0;
+        private double deathsSquared = 0;
+        private double assistsSquared = 0;
+        private double csSquared = 0;
+        private double goldSquared = 0;
+        private double damageSquared = 0;
+        private double visionScoreSquared = 0;
         private Set<String> roles = new HashSet<>();
         
         public void addGame(MatchParticipant participant, String role) {
@@ -305,6 +438,13 @@ public class DataProcessingService {
             totalGold += participant.getGoldEarned();
             totalDamage += participant.getDamageDealt();
             totalVisionScore += participant.getVisionScore();
+            killsSquared += square(participant.getKills());
+            deathsSquared += square(participant.getDeaths());
+            assistsSquared += square(participant.getAssists());
+            csSquared += square(participant.getCs());
+            goldSquared += square(participant.getGoldEarned());
+            damageSquared += square(participant.getDamageDealt());
+            visionScoreSquared += square(participant.getVisionScore());
             roles.add(role);
         }
         
@@ -320,5 +460,15 @@ public class DataProcessingService {
         public double getAverageDamage() { return totalGames > 0 ? totalDamage / totalGames : 0; }
         public double getAverageVisionScore() { return totalGames > 0 ? totalVisionScore / totalGames : 0; }
         public Set<String> getRoles() { return roles; }
+        
+        public Delta toDelta() {
+            return new Delta(totalGames, wins, losses)
+                    .withTotals(totalKills, totalDeaths, totalAssists, totalCs, totalGold, totalDamage, totalVisionScore)
+                    .withSquares(killsSquared, deathsSquared, assistsSquared, csSquared, goldSquared, damageSquared, visionScoreSquared);
+        }
+        
+        private static double square(double value) {
+            return value * value;
+        }
     }
 }
@@ -0,0 +1,150 @@
+package com.penta.service;
+
+import com.penta.model.Champion;
+
+import java.util.List;
+
+/**
+ * Running recommendation scores for one live draft.
+ *
+ * Keeps per-candidate sums and counts of known synergy and matchup win rates, so each pick
+ * costs one lookup per candidate instead of a rescore against the whole draft. Picked and
+ * banned champions drop out of the results. Not thread-safe; callers serialize events.
+ */
+public final class DraftScoreState {
+
+    private final MatchupDataSource.MatchupView view;
+    private final RecommendationScorer.Scores scores;
+    private final int[] indexes;
+    private final double[] comfort;
+    private final double[] meta;
+    private final double[] synergySum;
+    private final int[] synergyCount;
+    private final double[] matchupSum;
+    private final int[] matchupCount;
+    // Picked or banned, per compact index of the view's snapshot
+    private final boolean[] taken;
+
+    /**
+     * @param comfortByIndex player comfort per compact index of the view's snapshot
+     */
+    public DraftScoreState(List<Champion> candidates, double[] comfortByIndex, MatchupDataSource.MatchupView view) {
+        int n = candidates.size();
+        this.view = view;
+        this.scores = new RecommendationScorer.Scores(candidates);
+        this.indexes = new int[n];
+        this.comfort = new double[n];
+        this.meta = new double[n];
+        this.synergySum = new double[n];
+        this.synergyCount = new int[n];
+        this.matchupSum = new double[n];
+        this.matchupCount = new int[n];
+
+        ChampionRegistry.Snapshot snapshot = view.snapshot();
+        this.taken = new boolean[snapshot.size()];
+        for (int candidate = 0; candidate < n; candidate++) {
+            Champion champion = candidates.get(candidate);
+            int index = snapshot.indexOf(champion.getChampionId());
+            indexes[candidate] = index;
+            comfort[candidate] = index >= 0 && index < comfortByIndex.length
+                    ? comfortByIndex[index] : ComfortProfile.UNPLAYED_COMFORT;
+            meta[candidate] = RecommendationScorer.meta(champion);
+            update(candidate);
+        }
+    }
+
+    /**
+     * Compact index of a champion name in the view's snapshot, or -1 if unknown
+     */
+    public int indexOfName(String championName) {
+        return view.snapshot().indexOfName(championName);
+    }
+
+    /**
+     * @return false if the champion was already picked or banned, leaving the scores unchanged
+     */
+    public boolean addAlly(int ally) {
+        if (!take(ally)) {
+            return false;
+        }
+        for (int candidate = 0; candidate < indexes.length; candidate++) {
+            int index = indexes[candidate];
+            if (index < 0) {
+                continue;
+            }
+            double winRate = view.synergyWinRate(index, ally);
+            if (!Double.isNaN(winRate)) {
+                synergySum[candidate] += winRate;
+                synergyCount[candidate]++;
+                update(candidate);
+            }
+        }
+        exclude(ally);
+        return true;
+    }
+
+    /**
+     * @return false if the champion was already picked or banned, leaving the scores unchanged
+     */
+    public boolean addEnemy(int enemy) {
+        if (!take(enemy)) {
+            return false;
+        }
+        for (int candidate = 0; candidate < indexes.length; candidate++) {
+            int index = indexes[candidate];
+            if (index < 0) {
+                continue;
+            }
+            double winRate = view.matchupWinRate(index, enemy);
+            if (!Double.isNaN(winRate)) {
+                matchupSum[candidate] += winRate;
+                matchupCount[candidate]++;
+                update(candidate);
+            }
+        }
+        exclude(enemy);
+        return true;
+    }
+
+    /**
+     * @return false if the champion was already picked or banned
+     */
+    public boolean ban(int champion) {
+        if (!take(champion)) {
+            return false;
+        }
+        exclude(champion);
+        return true;
+    }
+
+    /**
+     * Current scores; valid until the next event
+     */
+    public RecommendationScorer.Scores scores() {
+        return scores;
+    }
+
+    private boolean take(int champion) {
+        if (champion < 0 || champion >= taken.length || taken[champion]) {
+            return false;
+        }
+        taken[champion] = true;
+        return true;
+    }
+
+    private void exclude(int champion) {
+        for (int candidate = 0; candidate < indexes.length; candidate++) {
+            if (indexes[candidate] == champion) {
+                scores.exclude(candidate);
+            }
+        }
+    }
+
+    private void update(int candidate) {
+        double synergy = synergyCount[candidate] > 0
+                ? (synergySum[candidate] / synergyCount[candidate]) / 100.0 : RecommendationScorer.NEUTRAL;
+        double matchup = matchupCount[candidate] > 0
+                ? (matchupSum[candidate] / matchupCount[candidate]) / 100.0 : RecommendationScorer.NEUTRAL;
+        scores.set(candidate, comfort[candidate], synergy, matchup, meta[candidate]);
+    }
+}
@@ -0,0 +1,177 @@
+package com.penta.service;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.RemovalCause;
+import com.penta.dto.ChampionRecommendationDto;
+import com.penta.dto.DraftEventDto;
+import com.penta.model.Player;
+import jakarta.annotation.PostConstruct;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.List;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+/**
+ * Live champion select sessions.
+ *
+ * A session resolves the player and loads the matchup view once, then applies each pick
+ * or ban to a DraftScoreState and pushes the new top recommendations to every SSE
+ * subscriber. Idle sessions expire.
+ */
+@Service
+public class DraftSessionService {
+
+    private static final Logger logger = LoggerFactory.getLogger(DraftSessionService.class);
+
+    public static final String RECOMMENDATIONS_EVENT = "recommendations";
+
+    @Autowired
+    private RiotApiService riotApiService;
+
+    @Autowired
+    private ChampionRecommendationService recommendationService;
+
+    @Value("${recommendation.draft.max-sessions:1000}")
+    private long maxSessions;
+
+    @Value("${recommendation.draft.idle-timeout-seconds:900}")
+    private long idleTimeoutSeconds;
+
+    private Cache<String, DraftSession> sessions;
+
+    @PostConstruct
+    public void initSessions() {
+        sessions = Caffeine.newBuilder()
+                .maximumSize(maxSessions)
+                .expireAfterAccess(Duration.ofSeconds(idleTimeoutSeconds))
+                .removalListener((String id, DraftSession session, RemovalCause cause) -> {
+                    if (session != null) {
+                        session.complete();
+                    }
+                })
+                .build();
+    }
+
+    /**
+     * Open a draft session for a player; empty if the player does not exist
+     */
+    public Optional<String> create(String summonerName, String region, String preferredRole) {
+        Optional<Player> playerOpt = riotApiService.getPlayerBySummonerName(summonerName, region);
+        if (playerOpt.isEmpty()) {
+            logger.warn("Player not found: {} in region {}", summonerName, region);
+            return Optional.empty();
+        }
+
+        String id = UUID.randomUUID().toString();
+        DraftScoreState state = recommendationService.startDraft(playerOpt.get(), preferredRole);
+        sessions.put(id, new DraftSession(state, recommendationService.toRecommendations(state.scores())));
+        return Optional.of(id);
+    }
+
+    /**
+     * Current recommendations, or empty if the session does not exist
+     */
+    public Optional<List<ChampionRecommendationDto>> current(String id) {
+        DraftSession session = sessions.getIfPresent(id);
+        if (session == null) {
+            return Optional.empty();
+        }
+        synchronized (session) {
+            return Optional.of(session.recommendations);
+        }
+    }
+
+    /**
+     * Apply a pick or ban and push the updated recommendations to subscribers; empty if the session does not exist.
+     * Unknown champion names and champions already picked or banned leave the scores unchanged.
+     */
+    public Optional<List<ChampionRecommendationDto>> apply(String id, DraftEventDto event) {
+        DraftSession session = sessions.getIfPresent(id);
+        if (session == null) {
+            return Optional.empty();
+        }
+
+        synchronized (session) {
+            int champion = session.state.indexOfName(event.getChampionName());
+            if (champion >= 0 && event.getType() != null) {
+                boolean applied = switch (event.getType()) {
+                    case ALLY_PICK -> session.state.addAlly(champion);
+                    case ENEMY_PICK -> session.state.addEnemy(champion);
+                    case BAN -> session.state.ban(champion);
+                };
+                if (applied) {
+                    session.recommendations = recommendationService.toRecommendations(session.state.scores());
+                    session.publish();
+                }
+            }
+            return Optional.of(session.recommendations);
+        }
+    }
+
+    /**
+     * Subscribe to a session's updates; the current recommendations are sent immediately
+     */
+    public Optional<SseEmitter> subscribe(String id) {
+        DraftSession session = sessions.getIfPresent(id);
+        if (session == null) {
+            return Optional.empty();
+        }
+
+        SseEmitter emitter = new SseEmitter(Duration.ofSeconds(idleTimeoutSeconds).toMillis());
+        emitter.onCompletion(() -> session.emitters.remove(emitter));
+        emitter.onTimeout(() -> session.emitters.remove(emitter));
+        emitter.onError(e -> session.emitters.remove(emitter));
+
+        synchronized (session) {
+            session.emitters.add(emitter);
+            session.send(emitter);
+        }
+        return Optional.of(emitter);
+    }
+
+    public void close(String id) {
+        sessions.invalidate(id);
+    }
+
+    private static final class DraftSession {
+        private final DraftScoreState state;
+        private final List<SseEmitter> emitters = new CopyOnWriteArrayList<>();
+        private List<ChampionRecommendationDto> recommendations;
+
+        DraftSession(DraftScoreState state, List<ChampionRecommendationDto> recommendations) {
+            this.state = state;
+            this.recommendations = recommendations;
+        }
+
+        void publish() {
+            for (SseEmitter emitter : emitters) {
+                send(emitter);
+            }
+        }
+
+        void send(SseEmitter emitter) {
+            try {
+                emitter.send(SseEmitter.event().name(RECOMMENDATIONS_EVENT).data(recommendations));
+            } catch (IOException | IllegalStateException e) {
+                // Client went away
+                emitter.completeWithError(e);
+                emitters.remove(emitter);
+            }
+        }
+
+        synchronized void complete() {
+            emitters.forEach(SseEmitter::complete);
+            emitters.clear();
+        }
+    }
+}
@@ -0,0 +1,49 @@
+package com.penta.service;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.annotation.Primary;
+import org.springframework.stereotype.Service;
+
+/**
+ * Default MatchupDataSource: our own aggregates first, cached u.gg data where our sample is too small
+ */
+@Service
+@Primary
+public class LocalFirstMatchupDataSource implements MatchupDataSource {
+
+    @Autowired
+    private LocalMatchupDataSource localMatchupDataSource;
+
+    @Autowired
+    private UggMatchupDataSource uggMatchupDataSource;
+
+    @Override
+    public MatchupView view(String patch, String rank, String role) {
+        MatchupView local = localMatchupDataSource.view(patch, rank, role);
+        MatchupView fallback = uggMatchupDataSource.view(patch, rank, role);
+        if (fallback.snapshot() != local.snapshot()) {
+            return local; // Registry reload in progress; indexes would not line up
+        }
+        return new LocalFirstView(local, fallback);
+    }
+
+    private record LocalFirstView(MatchupView local, MatchupView fallback) implements MatchupView {
+
+        @Override
+        public ChampionRegistry.Snapshot snapshot() {
+            return local.snapshot();
+        }
+
+        @Override
+        public double matchupWinRate(int champion, int opponent) {
+            double winRate = local.matchupWinRate(champion, opponent);
+            return Double.isNaN(winRate) ? fallback.matchupWinRate(champion, opponent) : winRate;
+        }
+
+        @Override
+        public double synergyWinRate(int champion, int ally) {
+            double winRate = local.synergyWinRate(champion, ally);
+            return Double.isNaN(winRate) ? fallback.synergyWinRate(champion, ally) : winRate;
+        }
+    }
+}
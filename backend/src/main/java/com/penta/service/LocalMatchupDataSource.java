@@ -0,0 +1,45 @@
+package com.penta.service;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+/**
+ * Matchup data from our own aggregates, read from the in-memory matrices.
+ * Pairs with fewer than recommendation.min-sample-games games count as unknown.
+ */
+@Service
+public class LocalMatchupDataSource implements MatchupDataSource {
+
+    @Autowired
+    private MatchupMatrixStore matchupMatrixStore;
+
+    @Value("${recommendation.min-sample-games:30}")
+    private int minSampleGames;
+
+    @Override
+    public MatchupView view(String patch, String rank, String role) {
+        MatchupMatrixStore.Slice slice = matchupMatrixStore.slice(patch, rank, role);
+        return new LocalView(slice.snapshot(), slice.matchups(), slice.synergies(), minSampleGames);
+    }
+
+    private record LocalView(ChampionRegistry.Snapshot snapshot,
+                             MatchupMatrixStore.Matrix matchups,
+                             MatchupMatrixStore.Matrix synergies,
+                             int minSampleGames) implements MatchupView {
+
+        @Override
+        public double matchupWinRate(int champion, int opponent) {
+            return winRate(matchups, champion, opponent);
+        }
+
+        @Override
+        public double synergyWinRate(int champion, int ally) {
+            return winRate(synergies, champion, ally);
+        }
+
+        private double winRate(MatchupMatrixStore.Matrix matrix, int i, int j) {
+            return matrix.games(i, j) >= minSampleGames ? matrix.winRate(i, j) : Double.NaN;
+        }
+    }
+}
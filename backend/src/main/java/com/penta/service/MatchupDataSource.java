@@ -0,0 +1,30 @@
+package com.penta.service;
+
+/**
+ * Source of champion-vs-champion and champion-with-champion win rates for recommendations.
+ *
+ * Lookups go through a view for one (patch, rank, role) and address champions by the
+ * compact index of the view's registry snapshot. They must not block on network I/O.
+ */
+public interface MatchupDataSource {
+
+    MatchupView view(String patch, String rank, String role);
+
+    interface MatchupView {
+
+        /**
+         * Registry snapshot whose compact indexes this view uses
+         */
+        ChampionRegistry.Snapshot snapshot();
+
+        /**
+         * Win rate in percent of champion against opponent, or NaN when unknown
+         */
+        double matchupWinRate(int champion, int opponent);
+
+        /**
+         * Win rate in percent of champion on the same team as ally, or NaN when unknown
+         */
+        double synergyWinRate(int champion, int ally);
+    }
+}
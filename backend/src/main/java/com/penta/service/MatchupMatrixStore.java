@@ -0,0 +1,287 @@
+package com.penta.service;
+
+import com.penta.repository.ChampionMatchupRepository;
+import com.penta.repository.ChampionSynergyRepository;
+import com.penta.repository.PairCounts;
+import com.penta.service.StatsDeltaBuffer.Delta;
+import com.penta.service.StatsDeltaBuffer.Key;
+import com.penta.service.StatsDeltaBuffer.Kind;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Dense in-memory copies of the champion_matchups and champion_synergies tables.
+ *
+ * Each (patch, rank, role) bucket is a pair of packed int[] matrices of games and wins,
+ * indexed by the ChampionRegistry compact index, so "how does X do against/with Y" is two
+ * array reads. Matchup cells are kept from both perspectives (wins[x][y] are x's wins over y);
+ * synergies are symmetric and live under role "ALL". Matrices are rebuilt from the tables at
+ * startup and whenever the registry reloads, and DataProcessingService applies every flushed
+ * batch after it commits.
+ */
+@Service
+public class MatchupMatrixStore {
+
+    private static final Logger logger = LoggerFactory.getLogger(MatchupMatrixStore.class);
+
+    public static final String ALL_ROLES = "ALL";
+
+    @Autowired
+    private ChampionRegistry championRegistry;
+
+    @Autowired
+    private ChampionMatchupRepository championMatchupRepository;
+
+    @Autowired
+    private ChampionSynergyRepository championSynergyRepository;
+
+    @Autowired
+    private ApplicationEventPublisher eventPublisher;
+
+    private record BucketKey(Kind kind, String patch, String rank, String role) {
+    }
+
+    /**
+     * One lane's matchup matrix
+     */
+    public record MatchupBucket(String patch, String rank, String role) {
+    }
+
+    /**
+     * Published after a rebuild; everything derived from the matrices must be recomputed
+     */
+    public record Rebuilt(ChampionRegistry.Snapshot snapshot) {
+    }
+
+    /**
+     * Published after a batch is applied: the champions (Riot championId) whose matchup cells changed, per lane
+     */
+    public record MatchupsChanged(Map<MatchupBucket, Set<Integer>> championIds) {
+    }
+
+    /**
+     * Published after a batch is applied: the synergy buckets (role ALL) whose cells changed
+     */
+    public record SynergiesChanged(Set<MatchupBucket> buckets) {
+    }
+
+    private record State(ChampionRegistry.Snapshot snapshot, Map<BucketKey, Matrix> buckets) {
+    }
+
+    // Serializes rebuilds with applied batches so a batch is never counted twice or lost across a rebuild
+    private final Object updateLock = new Object();
+    private volatile State state = new State(ChampionRegistry.Snapshot.of(List.of()), Map.of());
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void onApplicationReady() {
+        rebuild();
+    }
+
+    @EventListener
+    public void onRegistryReloaded(ChampionRegistry.Reloaded event) {
+        rebuild();
+    }
+
+    /**
+     * Reload every bucket from the tables against the current champion registry
+     */
+    public void rebuild() {
+        synchronized (updateLock) {
+            try {
+                ChampionRegistry.Snapshot snapshot = championRegistry.snapshot();
+                Map<BucketKey, Matrix> buckets = new HashMap<>();
+                load(buckets, snapshot, Kind.MATCHUP, championMatchupRepository.findAllPairCounts());
+                load(buckets, snapshot, Kind.SYNERGY, championSynergyRepository.findAllPairCounts());
+                state = new State(snapshot, buckets);
+                eventPublisher.publishEvent(new Rebuilt(snapshot));
+                logger.info("Loaded {} matchup/synergy matrices for {} champions", buckets.size(), snapshot.size());
+            } catch (Exception e) {
+                logger.error("Error rebuilding matchup matrices: {}", e.getMessage());
+            }
+        }
+    }
+
+    /**
+     * Run the commit of a flushed batch and then fold its matchup and synergy deltas into the matrices
+     */
+    public void applyCommitted(Runnable commit, Map<Key, Delta> deltas) {
+        synchronized (updateLock) {
+            commit.run();
+
+            State current = state;
+            Map<BucketKey, Matrix> buckets = new HashMap<>(current.buckets());
+            // Buckets already copied for this batch; published matrices are never written
+            Set<BucketKey> copied = new HashSet<>();
+            Map<MatchupBucket, Set<Integer>> changed = new HashMap<>();
+            Set<MatchupBucket> synergiesChanged = new HashSet<>();
+            for (Map.Entry<Key, Delta> entry : deltas.entrySet()) {
+                Key key = entry.getKey();
+                if (key.kind() == Kind.CHAMPION) {
+                    continue;
+                }
+                if (key.kind() == Kind.MATCHUP) {
+                    Set<Integer> championIds = changed.computeIfAbsent(
+                            new MatchupBucket(key.patch(), key.rank(), key.role()), b -> new HashSet<>());
+                    championIds.add(key.champion1Id());
+                    championIds.add(key.champion2Id());
+                } else {
+                    synergiesChanged.add(new MatchupBucket(key.patch(), key.rank(), ALL_ROLES));
+                }
+                BucketKey bucketKey = bucketKey(key.kind(), key.patch(), key.rank(), key.role());
+                Matrix matrix = buckets.get(bucketKey);
+                if (copied.add(bucketKey)) {
+                    matrix = matrix != null ? matrix.copy() : new Matrix(current.snapshot().size());
+                    buckets.put(bucketKey, matrix);
+                }
+                Delta delta = entry.getValue();
+                add(matrix, current.snapshot(), key.kind(), key.champion1Id(), key.champion2Id(),
+                        delta.getGames(), delta.getWins());
+            }
+
+            if (!copied.isEmpty()) {
+                state = new State(current.snapshot(), buckets);
+            }
+            if (!changed.isEmpty()) {
+                eventPublisher.publishEvent(new MatchupsChanged(changed));
+            }
+            if (!synergiesChanged.isEmpty()) {
+                eventPublisher.publishEvent(new SynergiesChanged(synergiesChanged));
+            }
+        }
+    }
+
+    /**
+     * Champion registry view the matrices are indexed by
+     */
+    public ChampionRegistry.Snapshot snapshot() {
+        return state.snapshot();
+    }
+
+    /**
+     * Matchup and synergy matrices for one bucket together with the registry view they are indexed by
+     */
+    public record Slice(ChampionRegistry.Snapshot snapshot, Matrix matchups, Matrix synergies) {
+    }
+
+    public Slice slice(String patch, String rank, String role) {
+        State current = state;
+        return new Slice(current.snapshot(),
+                current.buckets().getOrDefault(bucketKey(Kind.MATCHUP, patch, rank, role), Matrix.EMPTY),
+                current.buckets().getOrDefault(bucketKey(Kind.SYNERGY, patch, rank, ALL_ROLES), Matrix.EMPTY));
+    }
+
+    /**
+     * Matchup counters for one lane; wins(x, y) are x's wins against y. Never null.
+     */
+    public Matrix matchups(String patch, String rank, String role) {
+        return state.buckets().getOrDefault(bucketKey(Kind.MATCHUP, patch, rank, role), Matrix.EMPTY);
+    }
+
+    /**
+     * Same-team counters; games(x, y) == games(y, x). Never null.
+     */
+    public Matrix synergies(String patch, String rank) {
+        return state.buckets().getOrDefault(bucketKey(Kind.SYNERGY, patch, rank, ALL_ROLES), Matrix.EMPTY);
+    }
+
+    private static BucketKey bucketKey(Kind kind, String patch, String rank, String role) {
+        return new BucketKey(kind, patch, rank, kind == Kind.SYNERGY ? ALL_ROLES : role);
+    }
+
+    private void load(Map<BucketKey, Matrix> buckets, ChampionRegistry.Snapshot snapshot, Kind kind, List<PairCounts> rows) {
+        for (PairCounts row : rows) {
+            Matrix matrix = buckets.computeIfAbsent(bucketKey(kind, row.getPatch(), row.getRank(), row.getRole()),
+                    k -> new Matrix(snapshot.size()));
+            add(matrix, snapshot, kind, row.getChampion1Id(), row.getChampion2Id(), row.getGames(), row.getWins());
+        }
+    }
+
+    private void add(Matrix matrix, ChampionRegistry.Snapshot snapshot, Kind kind,
+                     int champion1Id, int champion2Id, int games, int wins) {
+        int i = snapshot.indexOf(champion1Id);
+        int j = snapshot.indexOf(champion2Id);
+        if (i < 0 || j < 0) {
+            return;
+        }
+        matrix.add(i, j, games, wins);
+        if (i != j) {
+            // Matchups mirror the result for the opponent; synergies are shared by both allies
+            matrix.add(j, i, games, kind == Kind.MATCHUP ? games - wins : wins);
+        }
+    }
+
+    /**
+     * Packed n x n game and win counters. A matrix is only written before it is published: the
+     * store applies each batch to copies of the buckets it touches and swaps them in with the
+     * new state, so lock-free readers always see games and wins from the same batch.
+     */
+    public static final class Matrix {
+        static final Matrix EMPTY = new Matrix(0);
+
+        private final int size;
+        private final int[] games;
+        private final int[] wins;
+
+        Matrix(int size) {
+            this(size, new int[size * size], new int[size * size]);
+        }
+
+        private Matrix(int size, int[] games, int[] wins) {
+            this.size = size;
+            this.games = games;
+            this.wins = wins;
+        }
+
+        public int size() {
+            return size;
+        }
+
+        public int games(int i, int j) {
+            return contains(i, j) ? games[i * size + j] : 0;
+        }
+
+        public int wins(int i, int j) {
+            return contains(i, j) ? wins[i * size + j] : 0;
+        }
+
+        /**
+         * Win rate in percent for i with/against j, or NaN when there are no games
+         */
+        public double winRate(int i, int j) {
+            if (!contains(i, j)) {
+                return Double.NaN;
+            }
+            int cell = i * size + j;
+            int cellGames = games[cell];
+            return cellGames > 0 ? wins[cell] * 100.0 / cellGames : Double.NaN;
+        }
+
+        /**
+         * False for indexes outside the matrix, including -1 for champions a snapshot does not know
+         */
+        private boolean contains(int i, int j) {
+            return i >= 0 && j >= 0 && i < size && j < size;
+        }
+
+        Matrix copy() {
+            return new Matrix(size, games.clone(), wins.clone());
+        }
+
+        void add(int i, int j, int gamesDelta, int winsDelta) {
+            int cell = i * size + j;
+            games[cell] += gamesDelta;
+            wins[cell] += winsDelta;
+        }
+    }
+}
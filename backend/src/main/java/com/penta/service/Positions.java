@@ -0,0 +1,43 @@
+package com.penta.service;
+
+import java.util.Locale;
+
+/**
+ * Maps the role names used by the frontend to Riot's individualPosition values
+ */
+public final class Positions {
+
+    public static final String ALL = "ALL";
+
+    /**
+     * Stored role for participants without a position, so aggregate keys never hold a NULL role
+     */
+    public static final String UNKNOWN = "UNKNOWN";
+
+    private Positions() {
+    }
+
+    /**
+     * A participant's individualPosition as stored on aggregate rows; missing positions become UNKNOWN
+     */
+    public static String stored(String individualPosition) {
+        return individualPosition == null || individualPosition.isBlank() ? UNKNOWN : individualPosition;
+    }
+
+    /**
+     * TOP, JUNGLE, MID, ADC, SUPPORT (and Riot's own names) -> TOP, JUNGLE, MIDDLE, BOTTOM, UTILITY; anything else -> ALL
+     */
+    public static String normalize(String role) {
+        if (role == null || role.isBlank()) {
+            return ALL;
+        }
+        return switch (role.trim().toUpperCase(Locale.ROOT)) {
+            case "TOP" -> "TOP";
+            case "JUNGLE", "JG" -> "JUNGLE";
+            case "MID", "MIDDLE" -> "MIDDLE";
+            case "ADC", "BOT", "BOTTOM" -> "BOTTOM";
+            case "SUPPORT", "SUP", "UTILITY" -> "UTILITY";
+            default -> ALL;
+        };
+    }
+}
@@ -0,0 +1,320 @@
+package com.penta.service;
+
+import com.penta.dto.*;
+import com.penta.config.RiotApiConfig;
+import com.penta.config.RiotWebClientRegistry;
+import com.penta.model.Champion;
+import com.penta.model.Match;
+import com.penta.model.MatchParticipant;
+import com.penta.model.Player;
+import com.github.benmanes.caffeine.cache.AsyncCache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import jakarta.annotation.PostConstruct;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.ParameterizedTypeReference;
+import org.springframework.stereotype.Service;
+import org.springframework.web.reactive.function.client.WebClientResponseException;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.Optional;
+
+/**
+ * Non-blocking Riot API client. Nothing here calls block(), so callers can keep
+ * many requests in flight on the WebClient event-loop threads.
+ * RiotApiService wraps these methods for callers that need plain values.
+ */
+@Service
+public class ReactiveRiotApiService {
+
+    @Autowired
+    private RiotApiConfig riotApiConfig;
+
+    @Autowired
+    private RiotWebClientRegistry webClients;
+
+    @Autowired
+    private ChampionRegistry championRegistry;
+
+    @Value("${riot.api.resolution-cache.ttl-seconds:60}")
+    private long resolutionCacheTtlSeconds;
+
+    @Value("${riot.api.resolution-cache.max-size:10000}")
+    private long resolutionCacheMaxSize;
+
+    // Values are immutable lookup results; each caller gets its own Player entity
+    private AsyncCache<String, String> puuidsByRiotId;
+    private AsyncCache<String, RiotSummonerDto> summonersByPuuid;
+
+    @PostConstruct
+    public void initResolutionCaches() {
+        puuidsByRiotId = Caffeine.newBuilder()
+                .expireAfterWrite(Duration.ofSeconds(resolutionCacheTtlSeconds))
+                .maximumSize(resolutionCacheMaxSize)
+                .buildAsync();
+        summonersByPuuid = Caffeine.newBuilder()
+                .expireAfterWrite(Duration.ofSeconds(resolutionCacheTtlSeconds))
+                .maximumSize(resolutionCacheMaxSize)
+                .buildAsync();
+    }
+
+    /**
+     * Get player information by Riot ID (gameName#tagLine); empty if the account does not exist.
+     * Concurrent lookups for the same Riot ID or PUUID share one upstream call, and results
+     * are kept for a short TTL so typeahead and profile requests don't repeat them.
+     */
+    public Mono<Player> getPlayerBySummonerName(String summonerName, String region) {
+        // Split into gameName and tagLine
+        String[] parts = summonerName.split("#");
+        String gameName = parts[0];
+        String tagLine = parts.length > 1 ? parts[1] : region.toUpperCase();
+        String riotIdKey = (gameName + "#" + tagLine + "@" + region).toLowerCase(Locale.ROOT);
+
+        // First, get PUUID from Account API, then summoner data using PUUID
+        return Mono.fromFuture(() -> puuidsByRiotId.get(riotIdKey,
+                        (key, executor) -> fetchPuuid(gameName, tagLine).toFuture()), true)
+                .flatMap(puuid -> getSummonerByPuuid(puuid, region))
+                .map(summoner -> toPlayer(summoner, gameName + "#" + tagLine, region))
+                .onErrorResume(WebClientResponseException.NotFound.class, e -> Mono.empty())
+                .onErrorMap(WebClientResponseException.class,
+                        e -> new RuntimeException("Error fetching player data: " + e.getMessage()));
+    }
+
+    /**
+     * Get summoner data by PUUID, sharing in-flight and recent lookups
+     */
+    public Mono<RiotSummonerDto> getSummonerByPuuid(String puuid, String region) {
+        String puuidKey = puuid + "@" + region.toLowerCase(Locale.ROOT);
+        return Mono.fromFuture(() -> summonersByPuuid.get(puuidKey,
+                (key, executor) -> fetchSummoner(puuid, region).toFuture()), true);
+    }
+
+    private Mono<String> fetchPuuid(String gameName, String tagLine) {
+        return webClients.defaultRouting()
+                .get()
+                .uri("/riot/account/v1/accounts/by-riot-id/{gameName}/{tagLine}", gameName, tagLine)
+                .attribute(RiotRateLimiter.METHOD_ATTRIBUTE, "account-v1.getByRiotId")
+                .retrieve()
+                .bodyToMono(RiotAccountDto.class)
+                .map(RiotAccountDto::getPuuid);
+    }
+
+    private Mono<RiotSummonerDto> fetchSummoner(String puuid, String region) {
+        return webClients.platform(region)
+                .get()
+                .uri("/lol/summoner/v4/summoners/by-puuid/{puuid}", puuid)
+                .attribute(RiotRateLimiter.METHOD_ATTRIBUTE, "summoner-v4.getByPUUID")
+                .retrieve()
+                .bodyToMono(RiotSummonerDto.class);
+    }
+
+    /**
+     * Get summoner profile (lightweight DTO)
+     */
+    public Mono<SummonerProfileDto> getSummonerProfile(String summonerName, String region) {
+        return getPlayerBySummonerName(summonerName, region).map(player -> {
+            SummonerProfileDto dto = new SummonerProfileDto();
+            dto.setSummonerName(player.getSummonerName());
+            dto.setRegion(player.getRegion());
+            dto.setSummonerId(player.getSummonerId());
+            dto.setPuuid(player.getPuuid());
+            dto.setSummonerLevel(player.getSummonerLevel());
+            dto.setProfileIconUrl(player.getProfileIconUrl());
+            return dto;
+        });
+    }
+
+    /**
+     * Get match ids from a player's match history, most recent first
+     */
+    public Flux<String> getMatchIds(String puuid, String region, int count) {
+        return webClients.routingForPlatform(region)
+                .get()
+                .uri("/lol/match/v5/matches/by-puuid/{puuid}/ids?start=0&count={count}", puuid, count)
+                .attribute(RiotRateLimiter.METHOD_ATTRIBUTE, "match-v5.getMatchIdsByPUUID")
+                .retrieve()
+                // A JSON array of strings has to go through Jackson; bodyToFlux(String.class) would split raw text
+                .bodyToMono(new ParameterizedTypeReference<List<String>>() {})
+                .flatMapIterable(matchIds -> matchIds)
+                .onErrorMap(WebClientResponseException.class,
+                        e -> new RuntimeException("Error fetching match history: " + e.getMessage()));
+    }
+
+    /**
+     * Get detailed match information; empty if the match does not exist
+     */
+    public Mono<Match> getMatchDetails(String matchId, String region) {
+        return webClients.routingForPlatform(region)
+                .get()
+                .uri("/lol/match/v5/matches/{matchId}", matchId)
+                .attribute(RiotRateLimiter.METHOD_ATTRIBUTE, "match-v5.getMatch")
+                .retrieve()
+                .bodyToMono(RiotMatchDto.class)
+                .map(this::convertToMatch)
+                .onErrorResume(WebClientResponseException.NotFound.class, e -> Mono.empty())
+                .onErrorMap(WebClientResponseException.class,
+                        e -> new RuntimeException("Error fetching match details: " + e.getMessage()));
+    }
+
+    /**
+     * Get champion mastery for a player
+     */
+    public Flux<RiotChampionMasteryDto> getChampionMastery(String summonerId, String region) {
+        return webClients.platform(region)
+                .get()
+                .uri("/lol/champion-mastery/v4/champion-masteries/by-summoner/{summonerId}", summonerId)
+                .attribute(RiotRateLimiter.METHOD_ATTRIBUTE, "champion-mastery-v4.getAllChampionMasteries")
+                .retrieve()
+                .bodyToFlux(RiotChampionMasteryDto.class)
+                .onErrorMap(WebClientResponseException.class,
+                        e -> new RuntimeException("Error fetching champion mastery: " + e.getMessage()));
+    }
+
+    /**
+     * Get current game information; empty if the player is not in game
+     */
+    public Mono<RiotCurrentGameDto> getCurrentGame(String summonerId, String region) {
+        return webClients.platform(region)
+                .get()
+                .uri("/lol/spectator/v4/active-games/by-summoner/{summonerId}", summonerId)
+                .attribute(RiotRateLimiter.METHOD_ATTRIBUTE, "spectator-v4.getCurrentGameInfoBySummoner")
+                .retrieve()
+                .bodyToMono(RiotCurrentGameDto.class)
+                .onErrorResume(WebClientResponseException.NotFound.class, e -> Mono.empty())
+                .onErrorMap(WebClientResponseException.class,
+                        e -> new RuntimeException("Error fetching current game: " + e.getMessage()));
+    }
+
+    /**
+     * Get all champions data from Data Dragon
+     */
+    public Flux<Champion> getAllChampions() {
+        return webClients.ddragon()
+                .get()
+                .uri("/cdn/{version}/data/en_US/champion.json", riotApiConfig.getDdragonVersion())
+                .retrieve()
+                .bodyToMono(RiotChampionsDto.class)
+                .flatMapIterable(champions -> champions.getData() != null
+                        ? champions.getData().values()
+                        : List.<RiotChampionDto>of())
+                .map(this::convertToChampion)
+                .onErrorMap(e -> new RuntimeException("Error fetching champions: " + e.getMessage()));
+    }
+
+    private Player toPlayer(RiotSummonerDto summoner, String riotId, String region) {
+        Player player = new Player();
+        player.setSummonerName(riotId);
+        player.setPuuid(summoner.getPuuid());
+        player.setSummonerId(summoner.getId());
+        player.setRegion(region);
+        player.setSummonerLevel(summoner.getSummonerLevel());
+        player.setProfileIconUrl(String.format("https://ddragon.leagueoflegends.com/cdn/%s/img/profileicon/%d.png",
+            riotApiConfig.getDdragonVersion(), summoner.getProfileIconId()));
+        player.setLastUpdated(LocalDateTime.now());
+        return player;
+    }
+
+    private Match convertToMatch(RiotMatchDto matchDto) {
+        Match match = new Match();
+        match.setMatchId(matchDto.getMetadata().getMatchId());
+        match.setGameMode(matchDto.getInfo().getGameMode());
+        match.setGameType(matchDto.getInfo().getGameType());
+        match.setGameStartTime(LocalDateTime.ofEpochSecond(matchDto.getInfo().getGameStartTimestamp() / 1000, 0, ZoneOffset.UTC));
+        match.setGameDuration(matchDto.getInfo().getGameDuration());
+        match.setPlatformId(matchDto.getInfo().getPlatformId());
+        match.setSeasonId(matchDto.getInfo().getSeasonId());
+        match.setQueueId(matchDto.getInfo().getQueueId());
+        match.setMapId(String.valueOf(matchDto.getInfo().getMapId()));
+        match.setGameVersion(matchDto.getInfo().getGameVersion());
+
+        // Convert participants
+        List<MatchParticipant> participants = new ArrayList<>();
+        if (matchDto.getInfo().getParticipants() != null) {
+            for (RiotParticipantDto participantDto : matchDto.getInfo().getParticipants()) {
+                MatchParticipant participant = convertToMatchParticipant(participantDto, match);
+                if (participant != null) {
+                    participants.add(participant);
+                }
+            }
+        }
+        match.setParticipants(participants);
+
+        return match;
+    }
+
+    private MatchParticipant convertToMatchParticipant(RiotParticipantDto dto, Match match) {
+        Optional<Champion> championOpt = championRegistry.findByChampionId(dto.getChampionId());
+        if (championOpt.isEmpty()) {
+            return null; // Skip if champion not found
+        }
+
+        MatchParticipant participant = new MatchParticipant();
+        participant.setMatch(match);
+        participant.setChampion(championOpt.get());
+        participant.setParticipantId(dto.getParticipantId());
+        participant.setSummonerId(dto.getSummonerId());
+        participant.setPuuid(dto.getPuuid());
+        String displayName = (dto.getRiotIdGameName() != null && !dto.getRiotIdGameName().isEmpty())
+            ? dto.getRiotIdGameName()
+            : dto.getSummonerName();
+        participant.setSummonerName(displayName);
+        participant.setTeamId(dto.getTeamId());
+        participant.setIndividualPosition(dto.getIndividualPosition());
+        participant.setTeamPosition(dto.getTeamPosition());
+        participant.setWon(dto.isWin());
+        participant.setKills(dto.getKills());
+        participant.setDeaths(dto.getDeaths());
+        participant.setAssists(dto.getAssists());
+        participant.setCs(dto.getTotalMinionsKilled() + dto.getNeutralMinionsKilled());
+        participant.setGoldEarned(dto.getGoldEarned());
+        participant.setDamageDealt(dto.getTotalDamageDealtToChampions());
+        participant.setDamageTaken(dto.getTotalDamageTaken());
+        participant.setVisionScore(dto.getVisionScore());
+        participant.setWardsPlaced(dto.getWardsPlaced());
+        participant.setWardsKilled(dto.getWardsKilled());
+        participant.setFirstBloodKill(dto.isFirstBloodKill());
+        participant.setFirstTowerKill(dto.isFirstTowerKill());
+        participant.setTotalMinionsKilled(dto.getTotalMinionsKilled());
+        participant.setNeutralMinionsKilled(dto.getNeutralMinionsKilled());
+        participant.setChampLevel(dto.getChampLevel());
+        participant.setItem0(dto.getItem0());
+        participant.setItem1(dto.getItem1());
+        participant.setItem2(dto.getItem2());
+        participant.setItem3(dto.getItem3());
+        participant.setItem4(dto.getItem4());
+        participant.setItem5(dto.getItem5());
+        participant.setItem6(dto.getItem6());
+        participant.setSummoner1Id(dto.getSummoner1Id());
+        participant.setSummoner2Id(dto.getSummoner2Id());
+        participant.setPrimaryPerk(dto.getPrimaryStyle());
+        participant.setSubPerk(dto.getSubStyle());
+
+        return participant;
+    }
+
+    private Champion convertToChampion(RiotChampionDto championDto) {
+        Champion champion = new Champion();
+        champion.setChampionId(championDto.getKey() != null ? Integer.parseInt(championDto.getKey()) : 0);
+        champion.setName(championDto.getName());
+        champion.setTitle(championDto.getTitle());
+        champion.setImageUrl(String.format("https://ddragon.leagueoflegends.com/cdn/%s/img/champion/%s.png",
+            riotApiConfig.getDdragonVersion(), championDto.getId()));
+        champion.setSplashUrl(String.format("https://ddragon.leagueoflegends.com/cdn/img/champion/splash/%s_0.jpg",
+                championDto.getId()));
+        champion.setTags(String.join(",", championDto.getTags()));
+
+
+        // Set default values for required fields
+        champion.setLane("ALL");
+        champion.setRole("ALL");
+
+        return champion;
+    }
+}
@@ -0,0 +1,148 @@
+package com.penta.service;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.penta.dto.ChampionRecommendationDto;
+import jakarta.annotation.PostConstruct;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.TreeSet;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+
+/**
+ * Recommendation results for repeated draft states during champion select.
+ *
+ * Entries are keyed by player, patch, rank, normalized role, the sorted ally and enemy sets and
+ * the data version. The version combines a global counter, bumped by matrix rebuilds, role
+ * index refreshes and (at most once per recommendation.cache.ugg-invalidate-interval-ms) new
+ * u.gg data, with counters for the entry's matchup and synergy buckets, bumped only when a
+ * flushed batch changes that bucket. Results computed before a change are never served after
+ * it (stale entries just age out of the LRU); a player's entries are dropped when their
+ * champion stats are rewritten.
+ */
+@Service
+public class RecommendationCache {
+
+    @Value("${recommendation.cache.max-size:1000}")
+    private long maxSize;
+
+    @Value("${recommendation.cache.ttl-seconds:600}")
+    private long ttlSeconds;
+
+    public record Key(String puuid, String patch, String rank, String role,
+                      List<String> allies, List<String> enemies, long dataVersion) {
+    }
+
+    private final AtomicLong dataVersion = new AtomicLong();
+    // Changes per matchup bucket; synergy buckets use role ALL
+    private final Map<MatchupMatrixStore.MatchupBucket, AtomicLong> bucketVersions = new ConcurrentHashMap<>();
+    private final AtomicBoolean uggDataChanged = new AtomicBoolean();
+    private Cache<Key, List<ChampionRecommendationDto>> results;
+
+    @PostConstruct
+    public void initCache() {
+        results = Caffeine.newBuilder()
+                .maximumSize(maxSize)
+                .expireAfterWrite(Duration.ofSeconds(ttlSeconds))
+                .build();
+    }
+
+    /**
+     * Key for a draft state; champion order, spelling variants and duplicates do not matter
+     */
+    public Key key(String puuid, String patch, String rank, String role, List<String> allies, List<String> enemies) {
+        String position = Positions.normalize(role);
+        // Every counter only grows, so the sum changes whenever any of them does
+        long version = dataVersion.get()
+                + bucketVersion(new MatchupMatrixStore.MatchupBucket(patch, rank, position))
+                + bucketVersion(new MatchupMatrixStore.MatchupBucket(patch, rank, MatchupMatrixStore.ALL_ROLES));
+        return new Key(puuid, patch, rank, position, normalize(allies), normalize(enemies), version);
+    }
+
+    /**
+     * Cached result for the key, computing it once if absent. Concurrent requests for the same key share one computation.
+     */
+    public List<ChampionRecommendationDto> get(Key key, Supplier<List<ChampionRecommendationDto>> compute) {
+        return results.get(key, k -> List.copyOf(compute.get()));
+    }
+
+    /**
+     * Recommendation inputs changed; results computed so far will not be served again
+     */
+    public void invalidateData() {
+        dataVersion.incrementAndGet();
+    }
+
+    /**
+     * New u.gg data was cached; results are invalidated on the next scheduled check, so a burst of scrapes bumps the version once
+     */
+    public void uggDataChanged() {
+        uggDataChanged.set(true);
+    }
+
+    @Scheduled(fixedDelayString = "${recommendation.cache.ugg-invalidate-interval-ms:30000}")
+    public void invalidateIfUggDataChanged() {
+        if (uggDataChanged.compareAndSet(true, false)) {
+            invalidateData();
+        }
+    }
+
+    /**
+     * A player's champion stats changed
+     */
+    public void invalidatePlayer(String puuid) {
+        results.asMap().keySet().removeIf(key -> Objects.equals(key.puuid(), puuid));
+    }
+
+    @EventListener
+    public void onRegistryReloaded(ChampionRegistry.Reloaded event) {
+        invalidateData();
+    }
+
+    @EventListener
+    public void onMatrixRebuilt(MatchupMatrixStore.Rebuilt event) {
+        invalidateData();
+    }
+
+    @EventListener
+    public void onMatchupsChanged(MatchupMatrixStore.MatchupsChanged event) {
+        event.championIds().keySet().forEach(this::bumpBucket);
+    }
+
+    @EventListener
+    public void onSynergiesChanged(MatchupMatrixStore.SynergiesChanged event) {
+        event.buckets().forEach(this::bumpBucket);
+    }
+
+    private long bucketVersion(MatchupMatrixStore.MatchupBucket bucket) {
+        AtomicLong version = bucketVersions.get(bucket);
+        return version != null ? version.get() : 0L;
+    }
+
+    private void bumpBucket(MatchupMatrixStore.MatchupBucket bucket) {
+        bucketVersions.computeIfAbsent(bucket, b -> new AtomicLong()).incrementAndGet();
+    }
+
+    private static List<String> normalize(List<String> championNames) {
+        TreeSet<String> names = new TreeSet<>();
+        if (championNames != null) {
+            for (String name : championNames) {
+                String normalized = ChampionRegistry.normalizeName(name);
+                if (!normalized.isEmpty()) {
+                    names.add(normalized);
+                }
+            }
+        }
+        return List.copyOf(names);
+    }
+}
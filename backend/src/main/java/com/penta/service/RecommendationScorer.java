@@ -0,0 +1,207 @@
+package com.penta.service;
+
+import com.penta.model.Champion;
+
+import java.util.List;
+
+/**
+ * Scores every recommendation candidate in one pass into primitive arrays.
+ *
+ * Candidates are addressed by their position in the candidate list; nothing is allocated
+ * per candidate, and callers build DTOs only for the entries returned by top(k).
+ */
+public final class RecommendationScorer {
+
+    public static final double COMFORT_WEIGHT = 0.4;
+    public static final double SYNERGY_WEIGHT = 0.3;
+    public static final double MATCHUP_WEIGHT = 0.2;
+    public static final double META_WEIGHT = 0.1;
+
+    static final double NEUTRAL = 0.5;
+
+    private RecommendationScorer() {
+    }
+
+    /**
+     * Factor and total scores for one request, indexed by candidate position
+     */
+    public static final class Scores {
+        private final List<Champion> candidates;
+        private final double[] comfort;
+        private final double[] synergy;
+        private final double[] matchup;
+        private final double[] meta;
+        private final double[] total;
+        private final boolean[] excluded;
+
+        Scores(List<Champion> candidates) {
+            int n = candidates.size();
+            this.candidates = candidates;
+            this.comfort = new double[n];
+            this.synergy = new double[n];
+            this.matchup = new double[n];
+            this.meta = new double[n];
+            this.total = new double[n];
+            this.excluded = new boolean[n];
+        }
+
+        void set(int candidate, double comfort, double synergy, double matchup, double meta) {
+            this.comfort[candidate] = comfort;
+            this.synergy[candidate] = synergy;
+            this.matchup[candidate] = matchup;
+            this.meta[candidate] = meta;
+            this.total[candidate] = comfort * COMFORT_WEIGHT + synergy * SYNERGY_WEIGHT
+                    + matchup * MATCHUP_WEIGHT + meta * META_WEIGHT;
+        }
+
+        /**
+         * Leave a candidate out of top(k), e.g. because it was already picked or banned
+         */
+        void exclude(int candidate) {
+            excluded[candidate] = true;
+        }
+
+        public int size() {
+            return total.length;
+        }
+
+        public Champion champion(int candidate) {
+            return candidates.get(candidate);
+        }
+
+        public double comfort(int candidate) {
+            return comfort[candidate];
+        }
+
+        public double synergy(int candidate) {
+            return synergy[candidate];
+        }
+
+        public double matchup(int candidate) {
+            return matchup[candidate];
+        }
+
+        public double meta(int candidate) {
+            return meta[candidate];
+        }
+
+        public double total(int candidate) {
+            return total[candidate];
+        }
+
+        /**
+         * Positions of the k best candidates that are not excluded, best first; ties keep candidate order
+         */
+        public int[] top(int k) {
+            int limit = Math.min(k, total.length);
+            if (limit <= 0) {
+                return new int[0];
+            }
+
+            // Min-heap on score whose root is the weakest of the best `limit` seen so far
+            int[] heap = new int[limit];
+            int heapSize = 0;
+            for (int candidate = 0; candidate < total.length; candidate++) {
+                if (excluded[candidate]) {
+                    continue;
+                }
+                if (heapSize < limit) {
+                    heap[heapSize] = candidate;
+                    siftUp(heap, heapSize++);
+                } else if (worse(heap[0], candidate)) {
+                    heap[0] = candidate;
+                    siftDown(heap, 0, heapSize);
+                }
+            }
+
+            // Pop the weakest repeatedly to fill the result from the back
+            int[] result = new int[heapSize];
+            for (int i = heapSize - 1; i >= 0; i--) {
+                result[i] = heap[0];
+                heap[0] = heap[--heapSize];
+                siftDown(heap, 0, heapSize);
+            }
+            return result;
+        }
+
+        private boolean worse(int a, int b) {
+            return total[a] < total[b] || (total[a] == total[b] && a > b);
+        }
+
+        private void siftUp(int[] heap, int i) {
+            while (i > 0) {
+                int parent = (i - 1) >>> 1;
+                if (!worse(heap[i], heap[parent])) {
+                    return;
+                }
+                swap(heap, i, parent);
+                i = parent;
+            }
+        }
+
+        private void siftDown(int[] heap, int i, int size) {
+            while (true) {
+                int left = 2 * i + 1;
+                if (left >= size) {
+                    return;
+                }
+                int right = left + 1;
+                int child = right < size && worse(heap[right], heap[left]) ? right : left;
+                if (!worse(heap[child], heap[i])) {
+                    return;
+                }
+                swap(heap, i, child);
+                i = child;
+            }
+        }
+
+        private static void swap(int[] heap, int i, int j) {
+            int tmp = heap[i];
+            heap[i] = heap[j];
+            heap[j] = tmp;
+        }
+    }
+
+    /**
+     * Score all candidates against a draft resolved to compact indexes of the view's snapshot
+     *
+     * @param comfortByIndex player comfort per compact index of the view's snapshot, see {@link ComfortProfile#comfort()}
+     */
+    public static Scores score(List<Champion> candidates, double[] comfortByIndex,
+                               MatchupDataSource.MatchupView view, int[] allies, int[] opponents) {
+        Scores scores = new Scores(candidates);
+        ChampionRegistry.Snapshot snapshot = view.snapshot();
+
+        for (int candidate = 0; candidate < scores.size(); candidate++) {
+            Champion champion = candidates.get(candidate);
+            int index = snapshot.indexOf(champion.getChampionId());
+
+            double comfort = index >= 0 && index < comfortByIndex.length ? comfortByIndex[index] : ComfortProfile.UNPLAYED_COMFORT;
+            double synergy = index >= 0 ? average(view, index, allies, true) : NEUTRAL;
+            double matchup = index >= 0 ? average(view, index, opponents, false) : NEUTRAL;
+            scores.set(candidate, comfort, synergy, matchup, meta(champion));
+        }
+        return scores;
+    }
+
+    static double meta(Champion champion) {
+        // Tier 1-5 scaled to 0-1; this would use current meta data from u.gg
+        return champion.getTier() != null ? champion.getTier() / 5.0 : NEUTRAL;
+    }
+
+    /**
+     * Mean known win rate with allies (synergy) or against opponents on a 0-1 scale, neutral when nothing is known
+     */
+    private static double average(MatchupDataSource.MatchupView view, int index, int[] others, boolean synergy) {
+        double total = 0.0;
+        int known = 0;
+        for (int other : others) {
+            double winRate = synergy ? view.synergyWinRate(index, other) : view.matchupWinRate(index, other);
+            if (!Double.isNaN(winRate)) {
+                total += winRate;
+                known++;
+            }
+        }
+        return known > 0 ? (total / known) / 100.0 : NEUTRAL;
+    }
+}
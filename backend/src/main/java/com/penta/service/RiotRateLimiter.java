@@ -0,0 +1,321 @@
+package com.penta.service;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpHeaders;
+import org.springframework.stereotype.Component;
+import org.springframework.web.reactive.function.client.ClientResponse;
+import org.springframework.web.reactive.function.client.ExchangeFilterFunction;
+import reactor.core.publisher.Mono;
+import reactor.util.retry.Retry;
+
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Client-side limiter for Riot API quotas.
+ *
+ * Every host (routing value such as na1 or americas) has an application bucket and one
+ * bucket per API method. Each bucket holds one token window per limit ("20:1,100:120"
+ * means 20 per second and 100 per two minutes). Windows start at the configured
+ * riot.api.rate-limit values and are resized from the X-App-Rate-Limit and
+ * X-Method-Rate-Limit response headers. Callers over quota are delayed until their
+ * slot opens instead of failing; a 429 blocks the bucket for Retry-After and the
+ * request is retried.
+ */
+@Component
+public class RiotRateLimiter {
+
+    private static final Logger logger = LoggerFactory.getLogger(RiotRateLimiter.class);
+
+    /**
+     * Request attribute carrying the Riot method id (e.g. "match-v5.getMatch")
+     */
+    public static final String METHOD_ATTRIBUTE = "riot.method";
+
+    private static final String DEFAULT_METHOD = "unknown";
+    private static final long DEFAULT_RETRY_AFTER_MS = 1000;
+
+    private final Map<String, HostLimits> hosts = new ConcurrentHashMap<>();
+    private final MeterRegistry meterRegistry;
+    private final int requestsPerSecond;
+    private final int requestsPerTwoMinutes;
+    private final int maxRetries;
+
+    @Autowired
+    public RiotRateLimiter(MeterRegistry meterRegistry,
+                           @Value("${riot.api.rate-limit.requests-per-second}") int requestsPerSecond,
+                           @Value("${riot.api.rate-limit.requests-per-two-minutes}") int requestsPerTwoMinutes,
+                           @Value("${riot.api.rate-limit.max-retries:3}") int maxRetries) {
+        this.meterRegistry = meterRegistry;
+        this.requestsPerSecond = requestsPerSecond;
+        this.requestsPerTwoMinutes = requestsPerTwoMinutes;
+        this.maxRetries = maxRetries;
+    }
+
+    /**
+     * Filter that queues each request for its slot, reads the limit headers and retries 429s
+     */
+    public ExchangeFilterFunction filter() {
+        return (request, next) -> {
+            String host = request.url().getHost();
+            String method = request.attribute(METHOD_ATTRIBUTE)
+                    .map(Object::toString)
+                    .orElse(DEFAULT_METHOD);
+
+            return Mono.defer(() -> acquire(host, method).then(next.exchange(request)))
+                    .flatMap(response -> handleResponse(host, method, response))
+                    .retryWhen(Retry.max(maxRetries)
+                            .filter(RateLimitExceededException.class::isInstance)
+                            .onRetryExhaustedThrow((spec, signal) -> signal.failure()));
+        };
+    }
+
+    /**
+     * Reserve a slot for one call; completes once the call may be sent
+     */
+    public Mono<Void> acquire(String host, String method) {
+        long waitNanos = hostLimits(host).reserve(method, System.nanoTime());
+        waitTimer(host, method).record(waitNanos, TimeUnit.NANOSECONDS);
+
+        if (waitNanos <= 0) {
+            return Mono.empty();
+        }
+        return Mono.delay(Duration.ofNanos(waitNanos)).then();
+    }
+
+    private Mono<ClientResponse> handleResponse(String host, String method, ClientResponse response) {
+        HttpHeaders headers = response.headers().asHttpHeaders();
+        HostLimits limits = hostLimits(host);
+        limits.update(method, headers, System.nanoTime());
+
+        if (response.statusCode().value() != 429) {
+            return Mono.just(response);
+        }
+
+        String limitType = headers.getFirst("X-Rate-Limit-Type");
+        long retryAfterMs = parseRetryAfterMs(headers.getFirst(HttpHeaders.RETRY_AFTER));
+        limits.block(method, "method".equalsIgnoreCase(limitType), System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(retryAfterMs));
+        meterRegistry.counter("riot.ratelimit.throttled",
+                "host", host, "method", method, "type", limitType != null ? limitType : "unknown").increment();
+        logger.warn("Riot API 429 on {} {} ({} limit), retrying after {} ms", host, method, limitType, retryAfterMs);
+
+        return response.releaseBody()
+                .then(Mono.error(new RateLimitExceededException("Riot API rate limit exceeded for " + host + " " + method)));
+    }
+
+    private long parseRetryAfterMs(String retryAfter) {
+        if (retryAfter == null) {
+            return DEFAULT_RETRY_AFTER_MS;
+        }
+        try {
+            return Long.parseLong(retryAfter.trim()) * 1000;
+        } catch (NumberFormatException e) {
+            return DEFAULT_RETRY_AFTER_MS;
+        }
+    }
+
+    private HostLimits hostLimits(String host) {
+        return hosts.computeIfAbsent(host, h -> new HostLimits(
+                new int[] { requestsPerSecond, requestsPerTwoMinutes },
+                new long[] { 1, 120 }));
+    }
+
+    private Timer waitTimer(String host, String method) {
+        return Timer.builder("riot.ratelimit.queue.wait")
+                .description("Time Riot API calls spent queued for a rate limit slot")
+                .tag("host", host)
+                .tag("method", method)
+                .register(meterRegistry);
+    }
+
+    /**
+     * Application and per-method buckets for one host, guarded by one lock so a call
+     * books its slot in every window atomically
+     */
+    static final class HostLimits {
+        private Bucket app;
+        private final Map<String, Bucket> methods = new HashMap<>();
+
+        HostLimits(int[] limits, long[] windowSeconds) {
+            this.app = new Bucket(null, limits, windowSeconds, null, System.nanoTime());
+        }
+
+        synchronized long reserve(String method, long now) {
+            Bucket methodBucket = methods.computeIfAbsent(method, m -> Bucket.unlimited());
+
+            // Find the earliest instant at which every window has room, then book it everywhere
+            long slot = Math.max(now, Math.max(app.blockedUntil, methodBucket.blockedUntil));
+            long previous;
+            do {
+                previous = slot;
+                slot = app.earliestSlot(slot);
+                slot = methodBucket.earliestSlot(slot);
+            } while (slot != previous);
+
+            app.book(slot);
+            methodBucket.book(slot);
+            return slot - now;
+        }
+
+        synchronized void update(String method, HttpHeaders headers, long now) {
+            try {
+                applyHeaders(method, headers, now);
+            } catch (RuntimeException e) {
+                logger.debug("Ignoring malformed rate limit headers: {}", e.getMessage());
+            }
+        }
+
+        private void applyHeaders(String method, HttpHeaders headers, long now) {
+            String appSpec = headers.getFirst("X-App-Rate-Limit");
+            if (appSpec != null && !appSpec.equals(app.spec)) {
+                app = Bucket.parse(appSpec, headers.getFirst("X-App-Rate-Limit-Count"), app, now);
+            }
+
+            String methodSpec = headers.getFirst("X-Method-Rate-Limit");
+            Bucket methodBucket = methods.get(method);
+            if (methodSpec != null && (methodBucket == null || !methodSpec.equals(methodBucket.spec))) {
+                methods.put(method, Bucket.parse(methodSpec, headers.getFirst("X-Method-Rate-Limit-Count"), methodBucket, now));
+            }
+        }
+
+        synchronized void block(String method, boolean methodLimit, long until) {
+            Bucket bucket = methodLimit ? methods.computeIfAbsent(method, m -> Bucket.unlimited()) : app;
+            bucket.blockedUntil = Math.max(bucket.blockedUntil, until);
+        }
+    }
+
+    /**
+     * A set of fixed windows, each refilled to its limit when the window ends (Riot's own semantics).
+     * Slots may be booked in future windows, which is how waiting callers are queued.
+     */
+    static final class Bucket {
+        private final String spec;
+        private final int[] limits;
+        private final long[] windowNanos;
+        private final long[] windowStart;
+        private final int[] used;
+        // nanoTime can be negative, so "not blocked" needs a sentinel below any real instant
+        private long blockedUntil = Long.MIN_VALUE;
+        private long lastBooked = Long.MIN_VALUE;
+
+        Bucket(String spec, int[] limits, long[] windowSeconds, int[] counts, long now) {
+            this.spec = spec;
+            this.limits = limits;
+            this.windowNanos = new long[limits.length];
+            this.windowStart = new long[limits.length];
+            this.used = new int[limits.length];
+            for (int i = 0; i < limits.length; i++) {
+                windowNanos[i] = TimeUnit.SECONDS.toNanos(windowSeconds[i]);
+                windowStart[i] = now;
+                used[i] = counts != null && i < counts.length ? counts[i] : 0;
+            }
+        }
+
+        static Bucket unlimited() {
+            return new Bucket(null, new int[0], new long[0], null, 0);
+        }
+
+        /**
+         * Parse a "limit:seconds,limit:seconds" header, seeding usage from the matching count header.
+         *
+         * Slots already booked in the previous bucket (possibly in future windows) carry over: a window
+         * of the same length keeps its start and booked count, and a new window length starts no earlier
+         * than the last booked slot, so queued callers are never double-booked.
+         */
+        static Bucket parse(String spec, String countSpec, Bucket previous, long now) {
+            String[] parts = spec.split(",");
+            int[] limits = new int[parts.length];
+            long[] windowSeconds = new long[parts.length];
+            int[] counts = new int[parts.length];
+
+            Map<Long, Integer> countsByWindow = new HashMap<>();
+            if (countSpec != null) {
+                for (String count : countSpec.split(",")) {
+                    String[] pair = count.trim().split(":");
+                    countsByWindow.put(Long.parseLong(pair[1]), Integer.parseInt(pair[0]));
+                }
+            }
+
+            for (int i = 0; i < parts.length; i++) {
+                String[] pair = parts[i].trim().split(":");
+                limits[i] = Integer.parseInt(pair[0]);
+                windowSeconds[i] = Long.parseLong(pair[1]);
+                counts[i] = countsByWindow.getOrDefault(windowSeconds[i], 0);
+            }
+
+            Bucket bucket = new Bucket(spec, limits, windowSeconds, counts, now);
+            if (previous != null) {
+                bucket.carryOver(previous, now);
+            }
+            return bucket;
+        }
+
+        private void carryOver(Bucket previous, long now) {
+            blockedUntil = previous.blockedUntil;
+            lastBooked = previous.lastBooked;
+            for (int i = 0; i < limits.length; i++) {
+                int match = -1;
+                for (int j = 0; j < previous.limits.length; j++) {
+                    if (previous.windowNanos[j] == windowNanos[i]) {
+                        match = j;
+                        break;
+                    }
+                }
+                if (match >= 0 && previous.windowStart[match] > now) {
+                    // Window booked ahead: the count header describes the current window, not this one
+                    windowStart[i] = previous.windowStart[match];
+                    used[i] = previous.used[match];
+                } else if (match >= 0 && now < previous.windowStart[match] + previous.windowNanos[match]) {
+                    // Same window still running: keep it, counting whichever usage is higher
+                    windowStart[i] = previous.windowStart[match];
+                    used[i] = Math.max(used[i], previous.used[match]);
+                } else if (match < 0 && lastBooked > now) {
+                    // Unknown window length: open it at the last booked slot so later bookings queue behind it
+                    windowStart[i] = lastBooked;
+                    used[i] = Math.max(used[i], 1);
+                }
+            }
+        }
+
+        long earliestSlot(long t) {
+            long slot = t;
+            for (int i = 0; i < limits.length; i++) {
+                long windowEnd = windowStart[i] + windowNanos[i];
+                if (slot >= windowEnd) {
+                    continue; // a fresh window starts at slot
+                }
+                slot = used[i] < limits[i] ? Math.max(slot, windowStart[i]) : windowEnd;
+            }
+            return slot;
+        }
+
+        void book(long slot) {
+            lastBooked = Math.max(lastBooked, slot);
+            for (int i = 0; i < limits.length; i++) {
+                if (slot >= windowStart[i] + windowNanos[i]) {
+                    windowStart[i] = slot;
+                    used[i] = 1;
+                } else {
+                    used[i]++;
+                }
+            }
+        }
+    }
+
+    /**
+     * Raised on a 429 so the request is retried once its bucket reopens
+     */
+    public static class RateLimitExceededException extends RuntimeException {
+        public RateLimitExceededException(String message) {
+            super(message);
+        }
+    }
+}
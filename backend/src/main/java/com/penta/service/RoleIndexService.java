@@ -0,0 +1,153 @@
+package com.penta.service;
+
+import com.penta.model.Champion;
+import com.penta.repository.ChampionStatsRepository;
+import com.penta.repository.RoleGames;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.stream.IntStream;
+
+/**
+ * Per-role recommendation candidates derived from where champions are actually played.
+ *
+ * A champion is a candidate for a position when at least recommendation.role-min-share of
+ * its games (summed over patches in champion_stats) were played there. Candidate lists are
+ * precomputed and swapped atomically; they are rebuilt at startup, on registry reload and,
+ * at most once per refresh interval, after new stats have been flushed. Positions without
+ * any data fall back to every champion.
+ */
+@Service
+public class RoleIndexService {
+
+    private static final Logger logger = LoggerFactory.getLogger(RoleIndexService.class);
+
+    public static final List<String> POSITIONS = List.of("TOP", "JUNGLE", "MIDDLE", "BOTTOM", "UTILITY");
+
+    @Autowired
+    private ChampionStatsRepository championStatsRepository;
+
+    @Autowired
+    private ChampionRegistry championRegistry;
+
+    @Autowired
+    private RecommendationCache recommendationCache;
+
+    @Value("${recommendation.rank:DIAMOND_PLUS}")
+    private String rank;
+
+    @Value("${recommendation.role-min-share:0.1}")
+    private double minShare;
+
+    /**
+     * Candidates for one position as compact indexes (ascending) and champions. Shared; do not modify.
+     */
+    public record Candidates(int[] indexes, List<Champion> champions) {
+    }
+
+    private record Index(ChampionRegistry.Snapshot snapshot, Map<String, Candidates> byPosition, Candidates all) {
+    }
+
+    private final AtomicBoolean dirty = new AtomicBoolean();
+    private volatile Index index = build(ChampionRegistry.Snapshot.of(List.of()), Map.of());
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void onApplicationReady() {
+        refresh();
+    }
+
+    @EventListener
+    public void onRegistryReloaded(ChampionRegistry.Reloaded event) {
+        refresh();
+    }
+
+    /**
+     * Note that new champion stats were written; the index is rebuilt on the next scheduled check
+     */
+    public void markDirty() {
+        dirty.set(true);
+    }
+
+    @Scheduled(fixedDelayString = "${recommendation.role-refresh-ms:60000}")
+    public void refreshIfDirty() {
+        if (dirty.compareAndSet(true, false)) {
+            refresh();
+        }
+    }
+
+    public void refresh() {
+        try {
+            ChampionRegistry.Snapshot snapshot = championRegistry.snapshot();
+            Map<Integer, Map<String, Long>> gamesByChampion = new HashMap<>();
+            for (RoleGames row : championStatsRepository.findRoleGamesByRank(rank)) {
+                if (POSITIONS.contains(row.getRole())) {
+                    gamesByChampion.computeIfAbsent(row.getChampionId(), id -> new HashMap<>())
+                            .merge(row.getRole(), row.getGames(), Long::sum);
+                }
+            }
+            index = build(snapshot, gamesByChampion);
+            recommendationCache.invalidateData();
+            logger.debug("Role index refreshed from {} champions with stats", gamesByChampion.size());
+        } catch (Exception e) {
+            logger.error("Error refreshing role index: {}", e.getMessage());
+        }
+    }
+
+    /**
+     * Candidates for a role in either frontend (MID, ADC, ...) or Riot (MIDDLE, BOTTOM, ...) naming
+     */
+    public Candidates candidates(String role) {
+        Index current = index;
+        Candidates candidates = current.byPosition().get(Positions.normalize(role));
+        return candidates != null ? candidates : current.all();
+    }
+
+    /**
+     * Registry view the candidate indexes refer to
+     */
+    public ChampionRegistry.Snapshot snapshot() {
+        return index.snapshot();
+    }
+
+    private Index build(ChampionRegistry.Snapshot snapshot, Map<Integer, Map<String, Long>> gamesByChampion) {
+        Map<String, List<Integer>> indexesByPosition = new HashMap<>();
+        for (int i = 0; i < snapshot.size(); i++) {
+            Map<String, Long> games = gamesByChampion.get(snapshot.byIndex(i).getChampionId());
+            if (games == null) {
+                continue;
+            }
+            long total = games.values().stream().mapToLong(Long::longValue).sum();
+            for (Map.Entry<String, Long> entry : games.entrySet()) {
+                if (total > 0 && (double) entry.getValue() / total >= minShare) {
+                    indexesByPosition.computeIfAbsent(entry.getKey(), p -> new ArrayList<>()).add(i);
+                }
+            }
+        }
+
+        Map<String, Candidates> byPosition = new HashMap<>();
+        indexesByPosition.forEach((position, indexes) ->
+                byPosition.put(position, candidates(snapshot, indexes.stream().mapToInt(Integer::intValue).toArray())));
+        Candidates all = candidates(snapshot, IntStream.range(0, snapshot.size()).toArray());
+        return new Index(snapshot, byPosition, all);
+    }
+
+    private Candidates candidates(ChampionRegistry.Snapshot snapshot, int[] indexes) {
+        List<Champion> champions = new ArrayList<>(indexes.length);
+        for (int i : indexes) {
+            champions.add(snapshot.byIndex(i));
+        }
+        return new Candidates(indexes, Collections.unmodifiableList(champions));
+    }
+}
@@ -0,0 +1,298 @@
+package com.penta.service;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Consumer;
+
+/**
+ * Write-behind buffer of champion stat, matchup and synergy increments.
+ *
+ * Match processing records deltas here instead of touching the database; deltas for the
+ * same row collapse into one entry, and the accumulated batch is handed to the sink when
+ * flush() runs (on a schedule, when the soft threshold is crossed, or at shutdown). A recorder
+ * that pushes the buffer past maxKeys waits for a flush. Recording never fails: deltas are
+ * merged before any flush, and a flush error is logged and leaves the data buffered.
+ *
+ * A batch the sink rejects is retried on its own, ahead of newer deltas, up to maxAttempts
+ * times; after that it is dropped with an error and its claims are released, so one poison
+ * batch neither blocks the buffer nor keeps its matches from being aggregated again.
+ *
+ * Each match's contribution to an aggregate kind is claimed before it is computed and the
+ * claim is held until the flush that writes it (and its ledger row) commits, so the same
+ * match can never be counted twice, even while a batch is in flight.
+ */
+public class StatsDeltaBuffer {
+
+    private static final Logger logger = LoggerFactory.getLogger(StatsDeltaBuffer.class);
+
+    public enum Kind { CHAMPION, MATCHUP, SYNERGY }
+
+    /**
+     * Identifies one aggregate row. champion2Id is 0 for CHAMPION rows; role is null for SYNERGY rows.
+     */
+    public record Key(Kind kind, int champion1Id, int champion2Id, String patch, String rank, String role) {
+    }
+
+    /**
+     * One match's contribution to one aggregate kind; written to the ledger with the batch
+     */
+    public record Contribution(String matchId, Kind kind, String patch) {
+    }
+
+    /**
+     * Everything handed to the sink by one flush
+     */
+    public record Batch(Map<Key, Delta> deltas, List<Contribution> contributions) {
+    }
+
+    /**
+     * Increments for one aggregate row. For MATCHUP rows wins/losses are champion1/champion2 wins;
+     * the per-game totals and their sums of squares are only used for CHAMPION rows.
+     */
+    public static final class Delta {
+        private int games;
+        private int wins;
+        private int losses;
+        private double kills;
+        private double deaths;
+        private double assists;
+        private double cs;
+        private double gold;
+        private double damage;
+        private double visionScore;
+        private double killsSquared;
+        private double deathsSquared;
+        private double assistsSquared;
+        private double csSquared;
+        private double goldSquared;
+        private double damageSquared;
+        private double visionScoreSquared;
+
+        public Delta(int games, int wins, int losses) {
+            this.games = games;
+            this.wins = wins;
+            this.losses = losses;
+        }
+
+        public static Delta result(boolean won) {
+            return new Delta(1, won ? 1 : 0, won ? 0 : 1);
+        }
+
+        public Delta withTotals(double kills, double deaths, double assists, double cs,
+                                double gold, double damage, double visionScore) {
+            this.kills = kills;
+            this.deaths = deaths;
+            this.assists = assists;
+            this.cs = cs;
+            this.gold = gold;
+            this.damage = damage;
+            this.visionScore = visionScore;
+            return this;
+        }
+
+        public Delta withSquares(double kills, double deaths, double assists, double cs,
+                                 double gold, double damage, double visionScore) {
+            this.killsSquared = kills;
+            this.deathsSquared = deaths;
+            this.assistsSquared = assists;
+            this.csSquared = cs;
+            this.goldSquared = gold;
+            this.damageSquared = damage;
+            this.visionScoreSquared = visionScore;
+            return this;
+        }
+
+        Delta add(Delta other) {
+            games += other.games;
+            wins += other.wins;
+            losses += other.losses;
+            kills += other.kills;
+            deaths += other.deaths;
+            assists += other.assists;
+            cs += other.cs;
+            gold += other.gold;
+            damage += other.damage;
+            visionScore += other.visionScore;
+            killsSquared += other.killsSquared;
+            deathsSquared += other.deathsSquared;
+            assistsSquared += other.assistsSquared;
+            csSquared += other.csSquared;
+            goldSquared += other.goldSquared;
+            damageSquared += other.damageSquared;
+            visionScoreSquared += other.visionScoreSquared;
+            return this;
+        }
+
+        public int getGames() { return games; }
+        public int getWins() { return wins; }
+        public int getLosses() { return losses; }
+        public double getKills() { return kills; }
+        public double getDeaths() { return deaths; }
+        public double getAssists() { return assists; }
+        public double getCs() { return cs; }
+        public double getGold() { return gold; }
+        public double getDamage() { return damage; }
+        public double getVisionScore() { return visionScore; }
+        public double getKillsSquared() { return killsSquared; }
+        public double getDeathsSquared() { return deathsSquared; }
+        public double getAssistsSquared() { return assistsSquared; }
+        public double getCsSquared() { return csSquared; }
+        public double getGoldSquared() { return goldSquared; }
+        public double getDamageSquared() { return damageSquared; }
+        public double getVisionScoreSquared() { return visionScoreSquared; }
+    }
+
+    private final int flushThreshold;
+    private final int maxKeys;
+    private final int maxAttempts;
+    private final Consumer<Batch> sink;
+
+    // Recorders share the read lock; flush takes the write lock only to swap maps,
+    // so a batch never contains part of a match
+    private final ReadWriteLock swapLock = new ReentrantReadWriteLock();
+    private final ReentrantLock flushLock = new ReentrantLock();
+    private volatile Map<Key, Delta> pending = new ConcurrentHashMap<>();
+    private volatile Collection<Contribution> pendingContributions = new ConcurrentLinkedQueue<>();
+    // Claimed contributions not yet committed: being computed, buffered or in flight
+    private final Set<Contribution> claims = ConcurrentHashMap.newKeySet();
+    // Batch the sink rejected and how often; guarded by flushLock
+    private Batch failed;
+    private int failedAttempts;
+
+    public StatsDeltaBuffer(int flushThreshold, int maxKeys, int maxAttempts, Consumer<Batch> sink) {
+        this.flushThreshold = flushThreshold;
+        this.maxKeys = Math.max(maxKeys, flushThreshold);
+        this.maxAttempts = Math.max(1, maxAttempts);
+        this.sink = sink;
+    }
+
+    /**
+     * Reserve a contribution before computing it; false if it is already claimed and not yet committed
+     */
+    public boolean claim(Contribution contribution) {
+        return claims.add(contribution);
+    }
+
+    /**
+     * Give up claims whose deltas will not be recorded (already in the ledger, or the ingesting transaction rolled back)
+     */
+    public void release(Collection<Contribution> contributions) {
+        claims.removeAll(contributions);
+    }
+
+    /**
+     * Add one match's claimed contributions and their deltas. The Delta instances are taken over
+     * by the buffer and must not be reused.
+     */
+    public void record(Collection<Contribution> contributions, Map<Key, Delta> deltas) {
+        swapLock.readLock().lock();
+        try {
+            merge(pending, deltas);
+            pendingContributions.addAll(contributions);
+        } finally {
+            swapLock.readLock().unlock();
+        }
+
+        if (pending.size() > maxKeys) {
+            flushLock.lock(); // Backpressure: wait for room rather than grow without bound
+        } else if (pending.size() < flushThreshold || !flushLock.tryLock()) {
+            return;
+        }
+        try {
+            flushLocked();
+        } catch (RuntimeException e) {
+            logger.error("Error flushing buffered stats, keeping {} rows for retry: {}", size(), e.getMessage());
+        } finally {
+            flushLock.unlock();
+        }
+    }
+
+    /**
+     * Hand everything buffered so far to the sink. On failure the failed batch is kept for
+     * retry (or dropped once it has failed maxAttempts times) and the error rethrown.
+     *
+     * @return number of rows flushed
+     */
+    public int flush() {
+        flushLock.lock();
+        try {
+            return flushLocked();
+        } finally {
+            flushLock.unlock();
+        }
+    }
+
+    public int size() {
+        Batch retry = failed;
+        return pending.size() + (retry != null ? retry.deltas().size() : 0);
+    }
+
+    private int flushLocked() {
+        int flushed = 0;
+        if (failed != null) {
+            Batch retry = failed;
+            try {
+                sink.accept(retry);
+            } catch (RuntimeException e) {
+                if (++failedAttempts >= maxAttempts) {
+                    drop(retry, e);
+                }
+                throw e;
+            }
+            failed = null;
+            failedAttempts = 0;
+            claims.removeAll(retry.contributions());
+            flushed += retry.deltas().size();
+        }
+
+        Batch batch;
+        swapLock.writeLock().lock();
+        try {
+            if (pending.isEmpty() && pendingContributions.isEmpty()) {
+                return flushed;
+            }
+            batch = new Batch(pending, new ArrayList<>(pendingContributions));
+            pending = new ConcurrentHashMap<>();
+            pendingContributions = new ConcurrentLinkedQueue<>();
+        } finally {
+            swapLock.writeLock().unlock();
+        }
+
+        try {
+            sink.accept(batch);
+        } catch (RuntimeException e) {
+            failed = batch;
+            failedAttempts = 1;
+            if (failedAttempts >= maxAttempts) {
+                drop(batch, e);
+            }
+            throw e;
+        }
+        // Only now are these contributions visible in the ledger
+        claims.removeAll(batch.contributions());
+        return flushed + batch.deltas().size();
+    }
+
+    private void drop(Batch batch, RuntimeException e) {
+        failed = null;
+        failedAttempts = 0;
+        claims.removeAll(batch.contributions());
+        logger.error("Dropping {} stat rows from {} match contributions after {} failed flushes: {}",
+                batch.deltas().size(), batch.contributions().size(), maxAttempts, e.getMessage());
+    }
+
+    private static void merge(Map<Key, Delta> target, Map<Key, Delta> deltas) {
+        deltas.forEach((key, delta) -> target.merge(key, delta, Delta::add));
+    }
+}
@@ -1,21 +1,24 @@
 package com.penta.service;
 
-import org.jsoup.Jsoup;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
 import org.jsoup.nodes.Document;
 import org.jsoup.nodes.Element;
 import org.jsoup.select.Elements;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
 import org.springframework.cache.annotation.CacheEvict;
 import org.springframework.cache.annotation.Cacheable;
 import org.springframework.stereotype.Service;
 
-import java.io.IOException;
-import java.time.Duration;
-import java.time.Instant;
 import java.util.*;
-import java.util.concurrent.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Supplier;
 
 import com.penta.dto.CounterData;
 import com.penta.dto.ChampionStats;
@@ -25,37 +28,38 @@ public class UggDataService {
     
     private static final Logger logger = LoggerFactory.getLogger(UggDataService.class);
     
-    // HTTP Headers Constants
-    private static final String USER_AGENT = "Mozilla/5.0 (Windows NT 10.0; Win64; x64) AppleWebKit/537.36 " +
-                                             "(KHTML, like Gecko) Chrome/120.0.0.0 Safari/537.36";
-    private static final String ACCEPT_HEADER = "text/html,application/xhtml+xml,application/xml";
-    private static final String ACCEPT_LANGUAGE = "en-US,en;q=0.9";
+    @Autowired
+    private UggScrapeExecutor scrapeExecutor;
+    
+    @Autowired
+    private CacheManager cacheManager;
+    
+    @Autowired
+    private MeterRegistry meterRegistry;
     
     @Value("${ugg.base-url}")
     private String baseUrl;
     
-    @Value("${ugg.timeout:5000}")
-    private int timeout;
-    
-    @Value("${ugg.max-retries:3}")
-    private int maxRetries;
+    /**
+     * Both views of one tier-list page
+     */
+    private record TierListPage(Map<String, Integer> tierList, Map<String, ChampionStats> stats) {
+    }
     
-    // Rate limiter using semaphore
-    private final Semaphore rateLimiter = new Semaphore(1);
-    private volatile Instant lastRequestTime = Instant.now();
-    private static final Duration MIN_REQUEST_INTERVAL = Duration.ofMillis(1000);
-
-    // Exponential backoff
-    private static long BASE_DELAY_MS = 1000;
+    // Tier-list page fetches in progress, by roleKey
+    private final Map<String, CompletableFuture<TierListPage>> tierListFetches = new ConcurrentHashMap<>();
     
     /**
      * Get good matchups for a champion with caching
      */
     @Cacheable(value = "goodMatchups", key = "#championName")
     public Optional<List<CounterData>> getGoodMatchups(String championName) {
+        return timedMiss("goodMatchups", () -> fetchGoodMatchups(championName));
+    }
+    
+    private Optional<List<CounterData>> fetchGoodMatchups(String championName) {
         try {
-            List<CounterData> goodMatchups = scrapeWorstPicksWithRetry(championName);
-            return Optional.of(goodMatchups);
+            return Optional.of(scrapeGoodMatchups(championName).join());
         } catch (Exception e) {
             logger.error("Failed to fetch good matchups for {}: {}", championName, e.getMessage());
             return Optional.empty();
@@ -67,9 +71,12 @@ public class UggDataService {
      */
     @Cacheable(value = "synergy", key = "#championName")
     public Optional<Map<String, Double>> getChampionSynergy(String championName) {
+        return timedMiss("synergy", () -> fetchChampionSynergy(championName));
+    }
+    
+    private Optional<Map<String, Double>> fetchChampionSynergy(String championName) {
         try {
-            Map<String, Double> synergyData = scrapeSynergyDataWithRetry(championName);
-            return Optional.of(synergyData);
+            return Optional.of(scrapeSynergy(championName).join());
         } catch (Exception e) {
             logger.error("Failed to fetch synergy for {}: {}", championName, e.getMessage());
             return Optional.empty();
@@ -79,11 +86,14 @@ public class UggDataService {
     /**
      * Get champion tier list data
      */
-    @Cacheable(value = "tierList", key = "#role")
+    @Cacheable(value = "tierList", key = "T(com.penta.service.UggDataService).roleKey(#role)")
     public Optional<Map<String, Integer>> getChampionTierList(String role) {
+        return timedMiss("tierList", () -> fetchChampionTierList(role));
+    }
+    
+    private Optional<Map<String, Integer>> fetchChampionTierList(String role) {
         try {
-            Map<String, Integer> tierList = scrapeTierListDataWithRetry(role);
-            return Optional.of(tierList);
+            return Optional.of(scrapeTierList(role).join());
         } catch (Exception e) {
             logger.error("Failed to fetch tier list for role {}: {}", role, e.getMessage());
             return Optional.empty();
@@ -93,11 +103,14 @@ public class UggDataService {
     /**
      * Get champion win rates
      */
-    @Cacheable(value = "championStats", key = "#role")
+    @Cacheable(value = "championStats", key = "T(com.penta.service.UggDataService).roleKey(#role)")
     public Optional<Map<String, ChampionStats>> getChampionStats(String role) {
+        return timedMiss("championStats", () -> fetchChampionStats(role));
+    }
+    
+    private Optional<Map<String, ChampionStats>> fetchChampionStats(String role) {
         try {
-            Map<String, ChampionStats> stats = scrapeChampionStatsWithRetry(role);
-            return Optional.of(stats);
+            return Optional.of(scrapeChampionStats(role).join());
         } catch (Exception e) {
             logger.error("Failed to fetch champion stats for role {}: {}", role, e.getMessage());
             return Optional.empty();
@@ -105,103 +118,179 @@ public class UggDataService {
     }
     
     /**
-     * Scrape with retry logic
+     * Non-blocking variants of the getters above: served from the same caches, and a miss
+     * scrapes in the background and stores the result. Issue several and await them together
+     * with CompletableFuture.allOf.
      */
-    private List<CounterData> scrapeWorstPicksWithRetry(String championName) throws IOException, InterruptedException {
-        return retryOperation(() -> scrapeWorstPicks(championName), "worst picks for " + championName);
+    public CompletableFuture<Optional<List<CounterData>>> getGoodMatchupsAsync(String championName) {
+        return cachedOrScrape("goodMatchups", championName, () -> scrapeGoodMatchups(championName));
     }
     
-    private Map<String, Double> scrapeSynergyDataWithRetry(String championName) throws IOException, InterruptedException {
-        return retryOperation(() -> scrapeSynergyData(championName), "synergy for " + championName);
+    public CompletableFuture<Optional<Map<String, Double>>> getChampionSynergyAsync(String championName) {
+        return cachedOrScrape("synergy", championName, () -> scrapeSynergy(championName));
     }
     
-    private Map<String, Integer> scrapeTierListDataWithRetry(String role) throws IOException, InterruptedException {
-        return retryOperation(() -> scrapeTierListData(role), "tier list for " + role);
+    public CompletableFuture<Optional<Map<String, Integer>>> getChampionTierListAsync(String role) {
+        return cachedOrScrape("tierList", roleKey(role), () -> scrapeTierList(role));
     }
     
-    private Map<String, ChampionStats> scrapeChampionStatsWithRetry(String role) throws IOException, InterruptedException {
-        return retryOperation(() -> scrapeChampionStats(role), "stats for " + role);
+    public CompletableFuture<Optional<Map<String, ChampionStats>>> getChampionStatsAsync(String role) {
+        return cachedOrScrape("championStats", roleKey(role), () -> scrapeChampionStats(role));
     }
     
     /**
-     * Generic retry operation with exponential backoff
+     * Scrape one cache entry and store it, replacing whatever is cached; a failed scrape leaves
+     * the cache untouched. Completes with whether the scrape succeeded.
      */
-    private <T> T retryOperation(SupplierWithException<T> operation, String operationName) 
-            throws IOException, InterruptedException {
-        int attempt = 0;
-        Exception lastException = null;
-        
-        while (attempt < maxRetries) {
-            try {
-                return operation.get();
-            } catch (IOException e) {
-                lastException = e;
-                attempt++;
-                if (attempt < maxRetries) {
-                    long backoffMs = (long) Math.pow(2, attempt) * BASE_DELAY_MS;
-                    Thread.sleep(backoffMs);
-                }
+    public CompletableFuture<Boolean> prefetch(String cacheName, String key) {
+        CompletableFuture<?> scrape = switch (cacheName) {
+            case "goodMatchups" -> scrapeGoodMatchups(key);
+            case "synergy" -> scrapeSynergy(key);
+            case "tierList" -> scrapeTierList(key);
+            case "championStats" -> scrapeChampionStats(key);
+            default -> CompletableFuture.failedFuture(new IllegalArgumentException("Unknown u.gg cache " + cacheName));
+        };
+        Cache cache = cacheManager.getCache(cacheName);
+        String cacheKey = switch (cacheName) {
+            case "tierList", "championStats" -> roleKey(key);
+            default -> key;
+        };
+        return scrape.handle((value, e) -> {
+            if (e != null) {
+                logger.warn("Failed to prefetch {} for {}: {}", cacheName, key, e.getMessage());
+                return false;
             }
-        }
-        
-        throw new IOException("Failed after " + maxRetries + " retries for " + operationName, lastException);
+            if (cache != null) {
+                cache.put(cacheKey, value);
+            }
+            return true;
+        });
     }
     
-    @FunctionalInterface
-    private interface SupplierWithException<T> {
-        T get() throws IOException, InterruptedException;
+    /**
+     * Scrape the value behind one entry of a u.gg cache without going through the cache,
+     * for the background refresher. Empty if the scrape failed or the cache is unknown.
+     */
+    public Optional<?> fetchForCache(String cacheName, String key) {
+        // Caffeine times these loads itself, so they skip the miss timer
+        return switch (cacheName) {
+            case "goodMatchups" -> fetchGoodMatchups(key);
+            case "synergy" -> fetchChampionSynergy(key);
+            case "tierList" -> fetchChampionTierList(key);
+            case "championStats" -> fetchChampionStats(key);
+            default -> Optional.empty();
+        };
     }
     
     /**
-     * Rate limiting with token bucket
+     * Uncached scrapes, paced and retried by the scrape executor
      */
-    private void rateLimit() throws InterruptedException {
-        rateLimiter.acquire();
-        try {
-            Instant now = Instant.now();
-            Duration elapsed = Duration.between(lastRequestTime, now);
-            
-            if (elapsed.compareTo(MIN_REQUEST_INTERVAL) < 0) {
-                Duration sleepDuration = MIN_REQUEST_INTERVAL.minus(elapsed);
-                Thread.sleep(sleepDuration.toMillis());
-            }
-            
-            lastRequestTime = Instant.now();
-        } finally {
-            rateLimiter.release();
-        }
+    private CompletableFuture<List<CounterData>> scrapeGoodMatchups(String championName) {
+        String url = baseUrl + "/lol/champions/" + championName.toLowerCase() + "/counter";
+        return scrapeExecutor.scrape(url, doc -> parseWorstPicks(doc, championName), "worst picks for " + championName);
+    }
+    
+    private CompletableFuture<Map<String, Double>> scrapeSynergy(String championName) {
+        String url = baseUrl + "/lol/champions/" + championName.toLowerCase() + "/synergy";
+        return scrapeExecutor.scrape(url, this::parseSynergyData, "synergy for " + championName);
+    }
+    
+    private CompletableFuture<Map<String, Integer>> scrapeTierList(String role) {
+        return scrapeTierListPage(role).thenApply(TierListPage::tierList);
+    }
+    
+    private CompletableFuture<Map<String, ChampionStats>> scrapeChampionStats(String role) {
+        return scrapeTierListPage(role).thenApply(TierListPage::stats);
     }
     
     /**
-     * Fetch document with proper error handling
+     * Fetch and parse a role's tier-list page once for both the tierList and championStats views.
+     * Concurrent callers for the same role share one fetch, and a successful fetch fills both caches.
      */
-    private Document fetchDocument(String url) throws IOException, InterruptedException {
-        rateLimit();
+    private CompletableFuture<TierListPage> scrapeTierListPage(String role) {
+        String pageRole = roleKey(role);
+        CompletableFuture<TierListPage> page = new CompletableFuture<>();
+        CompletableFuture<TierListPage> inFlight = tierListFetches.putIfAbsent(pageRole, page);
+        if (inFlight != null) {
+            return inFlight;
+        }
         
-        try {
-            return Jsoup.connect(url)
-                    .userAgent(USER_AGENT)
-                    .header("Accept", ACCEPT_HEADER)
-                    .header("Accept-Language", ACCEPT_LANGUAGE)
-                    .header("Cache-Control", "no-cache")
-                    .timeout(timeout)
-                    .followRedirects(true)
-                    .maxBodySize(0)
-                    .get();
-        } catch (IOException e) {
-            logger.error("Failed to fetch {}: {}", url, e.getMessage());
-            throw e;
+        String url = baseUrl + "/lol/tier-list?role=" + pageRole;
+        scrapeExecutor.scrape(url, this::parseTierListPage, "tier list for " + role).whenComplete((parsed, e) -> {
+            tierListFetches.remove(pageRole, page);
+            if (e != null) {
+                page.completeExceptionally(e);
+                return;
+            }
+            putIfCacheExists("tierList", pageRole, parsed.tierList());
+            putIfCacheExists("championStats", pageRole, parsed.stats());
+            page.complete(parsed);
+        });
+        return page;
+    }
+    
+    /**
+     * Run the scrape behind a @Cacheable miss, timed as ugg.scrape.miss. Spring's cache
+     * abstraction loads misses outside Caffeine, so cache.load only covers background refreshes.
+     */
+    private <T> Optional<T> timedMiss(String cacheName, Supplier<Optional<T>> scrape) {
+        Timer.Sample sample = Timer.start(meterRegistry);
+        Optional<T> value = scrape.get();
+        sample.stop(missTimer(cacheName, value.isPresent()));
+        return value;
+    }
+    
+    private Timer missTimer(String cacheName, boolean success) {
+        return Timer.builder("ugg.scrape.miss")
+                .description("Time requests waited on u.gg for an entry that was not cached")
+                .tag("cache", cacheName)
+                .tag("result", success ? "success" : "failure")
+                .register(meterRegistry);
+    }
+    
+    /**
+     * Key of a role in the tierList and championStats caches and in the in-flight page map, so
+     * "TOP" and "top" share one entry
+     */
+    public static String roleKey(String role) {
+        return role.toLowerCase(Locale.ROOT);
+    }
+    
+    private void putIfCacheExists(String cacheName, String key, Object value) {
+        Cache cache = cacheManager.getCache(cacheName);
+        if (cache != null) {
+            cache.put(key, value);
+        }
+    }
+    
+    @SuppressWarnings("unchecked")
+    private <T> CompletableFuture<Optional<T>> cachedOrScrape(String cacheName, String key,
+                                                              Supplier<CompletableFuture<T>> scrape) {
+        Cache cache = cacheManager.getCache(cacheName);
+        Cache.ValueWrapper cached = cache != null ? cache.get(key) : null;
+        if (cached != null) {
+            return CompletableFuture.completedFuture(Optional.ofNullable((T) cached.get()));
         }
+        
+        Timer.Sample sample = Timer.start(meterRegistry);
+        return scrape.get().handle((value, e) -> {
+            sample.stop(missTimer(cacheName, e == null));
+            // Store what @Cacheable would: the Optional's content, or null for a failed scrape
+            if (e != null) {
+                logger.error("Failed to fetch {} for {}: {}", cacheName, key, e.getMessage());
+            }
+            if (cache != null) {
+                cache.put(key, e == null ? value : null);
+            }
+            return e == null ? Optional.of(value) : Optional.empty();
+        });
     }
     
     /**
-     * Scrape worst picks using precise CSS selectors based on U.GG's actual HTML structure
+     * Parse worst picks using precise CSS selectors based on U.GG's actual HTML structure
      * Structure: a.flex.items-center.p-[12px] contains the champion row data
      */
-    private List<CounterData> scrapeWorstPicks(String championName) throws IOException, InterruptedException {
-        String url = baseUrl + "/lol/champions/" + championName.toLowerCase() + "/counter";
-        Document doc = fetchDocument(url);
-
+    private List<CounterData> parseWorstPicks(Document doc, String championName) {
         Elements championRows = doc.select("a.flex.items-center[class*=p-\\[12px\\]]");
         
         if (championRows.isEmpty()) {
@@ -255,12 +344,9 @@ public class UggDataService {
     }
     
     /**
-     * Scrape synergy data using similar structure to worst picks
+     * Parse synergy data using similar structure to worst picks
      */
-    private Map<String, Double> scrapeSynergyData(String championName) throws IOException, InterruptedException {
-        String url = baseUrl + "/lol/champions/" + championName.toLowerCase() + "/synergy";
-        Document doc = fetchDocument(url);
-        
+    private Map<String, Double> parseSynergyData(Document doc) {
         Map<String, Double> synergyData = new HashMap<>();
         
         Elements synergyRows = doc.select("a.flex.items-center[class*=p-\\[12px\\]]");
@@ -294,68 +380,40 @@ public class UggDataService {
     }
     
     /**
-     * Scrape tier list data
+     * Parse the tier list and champion stats from one pass over the tier-list rows
      */
-    private Map<String, Integer> scrapeTierListData(String role) throws IOException, InterruptedException {
-        String url = baseUrl + "/lol/tier-list?role=" + role.toLowerCase();
-        Document doc = fetchDocument(url);
-        
+    private TierListPage parseTierListPage(Document doc) {
         Map<String, Integer> tierList = new HashMap<>();
+        Map<String, ChampionStats> stats = new HashMap<>();
         
         Elements championRows = doc.select("a.flex.items-center[class*=p-\\[12px\\]]");
         
         for (Element row : championRows) {
-            try {
-                Element nameElement = row.selectFirst("div.text-white.font-bold.truncate");
-                if (nameElement == null) continue;
-                String champion = nameElement.text().trim();
-                
-                Elements tierElements = row.select("div:matches(^[1-5]$)");
-                if (tierElements.isEmpty()) continue;
-                
-                String tierText = tierElements.first().text().trim();
-                if (!champion.isEmpty() && !tierText.isEmpty()) {
-                    int tier = Integer.parseInt(tierText);
+            Element nameElement = row.selectFirst("div.text-white.font-bold.truncate");
+            if (nameElement == null) continue;
+            String champion = nameElement.text().trim();
+            if (champion.isEmpty()) continue;
+            
+            Integer tier = null;
+            Elements tierElements = row.select("div:matches(^[1-5]$)");
+            if (!tierElements.isEmpty()) {
+                try {
+                    tier = Integer.parseInt(tierElements.first().text().trim());
                     tierList.put(champion, tier);
+                } catch (NumberFormatException e) {
+                    // Skip invalid data
                 }
-            } catch (NumberFormatException e) {
-                // Skip invalid data
             }
-        }
-        
-        return tierList;
-    }
-    
-    /**
-     * Scrape champion stats
-     */
-    private Map<String, ChampionStats> scrapeChampionStats(String role) throws IOException, InterruptedException {
-        String url = baseUrl + "/lol/tier-list?role=" + role.toLowerCase();
-        Document doc = fetchDocument(url);
-        
-        Map<String, ChampionStats> stats = new HashMap<>();
-        
-        Elements championRows = doc.select("a.flex.items-center[class*=p-\\[12px\\]]");
-        
-        for (Element row : championRows) {
+            
+            Element wrElement = row.selectFirst("div[class*=text-accent-]:containsOwn(WR)");
+            if (wrElement == null) continue;
+            String wrText = wrElement.text().replace("% WR", "").replace("%", "").trim();
+            
             try {
-                Element nameElement = row.selectFirst("div.text-white.font-bold.truncate");
-                if (nameElement == null) continue;
-                String champion = nameElement.text().trim();
-                
-                Element wrElement = row.selectFirst("div[class*=text-accent-]:containsOwn(WR)");
-                if (wrElement == null) continue;
-                String wrText = wrElement.text().replace("% WR", "").replace("%", "").trim();
-                
-                Elements tierElements = row.select("div:matches(^[1-5]$)");
-                String tierText = tierElements.isEmpty() ? "0" : tierElements.first().text().trim();
-                
-                if (!champion.isEmpty() && !wrText.isEmpty()) {
+                if (!wrText.isEmpty()) {
                     double winRate = Double.parseDouble(wrText);
-                    int tier = tierText.isEmpty() ? 0 : Integer.parseInt(tierText);
-                    
                     if (winRate >= 0 && winRate <= 100) {
-                        stats.put(champion, new ChampionStats(winRate, tier));
+                        stats.put(champion, new ChampionStats(winRate, tier != null ? tier : 0));
                     }
                 }
             } catch (NumberFormatException e) {
@@ -363,7 +421,7 @@ public class UggDataService {
             }
         }
         
-        return stats;
+        return new TierListPage(tierList, stats);
     }
     
     /**
@@ -385,7 +443,7 @@ public class UggDataService {
     /**
      * Clear cache for specific role
      */
-    @CacheEvict(value = {"tierList", "championStats"}, key = "#role")
+    @CacheEvict(value = {"tierList", "championStats"}, key = "T(com.penta.service.UggDataService).roleKey(#role)")
     public void clearCacheForRole(String role) {
         logger.info("Cache cleared for role: {}", role);
     }
@@ -0,0 +1,162 @@
+package com.penta.service;
+
+import com.penta.dto.CounterData;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.stereotype.Service;
+
+import java.util.Collection;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * u.gg matchup and synergy data, served only from what is already cached.
+ *
+ * A lookup that misses the cache returns NaN and starts a background scrape, which fills
+ * the cache for later requests; recommendation latency never waits on u.gg. At most
+ * ugg.fallback.queue-capacity scrapes are outstanding and each champion page is fetched at
+ * most once at a time.
+ */
+@Service
+public class UggMatchupDataSource implements MatchupDataSource {
+
+    private static final Logger logger = LoggerFactory.getLogger(UggMatchupDataSource.class);
+
+    @Autowired
+    private UggDataService uggDataService;
+
+    @Autowired
+    private CacheManager cacheManager;
+
+    @Autowired
+    private ChampionRegistry championRegistry;
+
+    @Autowired
+    private RecommendationCache recommendationCache;
+
+    @Value("${ugg.fallback.queue-capacity:64}")
+    private int queueCapacity;
+
+    private final Set<String> queued = ConcurrentHashMap.newKeySet();
+
+    @Override
+    public MatchupView view(String patch, String rank, String role) {
+        return new UggView(championRegistry.snapshot());
+    }
+
+    /**
+     * Cached u.gg data for one champion keyed by normalized champion name, or null on a miss (after queueing a fetch)
+     */
+    private Map<String, Double> cachedMatchups(String championName) {
+        return cached("goodMatchups", championName, uggDataService::getGoodMatchupsAsync, value -> {
+            @SuppressWarnings("unchecked")
+            Collection<CounterData> counters = (Collection<CounterData>) value;
+            return counters.stream().collect(Collectors.toMap(
+                    counter -> ChampionRegistry.normalizeName(counter.getChampionName()),
+                    CounterData::getWinRate,
+                    (existing, replacement) -> existing));
+        });
+    }
+
+    private Map<String, Double> cachedSynergies(String championName) {
+        return cached("synergy", championName, uggDataService::getChampionSynergyAsync, value -> {
+            @SuppressWarnings("unchecked")
+            Map<String, Double> synergy = (Map<String, Double>) value;
+            return synergy.entrySet().stream().collect(Collectors.toMap(
+                    entry -> ChampionRegistry.normalizeName(entry.getKey()),
+                    Map.Entry::getValue,
+                    (existing, replacement) -> existing));
+        });
+    }
+
+    private Map<String, Double> cached(String cacheName, String championName,
+                                       Function<String, CompletableFuture<?>> fetch,
+                                       Function<Object, Map<String, Double>> convert) {
+        Cache cache = cacheManager.getCache(cacheName);
+        if (cache == null) {
+            return Map.of();
+        }
+
+        Cache.ValueWrapper wrapper = cache.get(championName);
+        if (wrapper == null) {
+            queueFetch(cacheName, championName, fetch);
+            return null;
+        }
+
+        // @Cacheable stores the content of the returned Optional, or null when it was empty
+        Object value = wrapper.get();
+        if (value instanceof Optional<?> optional) {
+            value = optional.orElse(null);
+        }
+        return value != null ? convert.apply(value) : Map.of();
+    }
+
+    private void queueFetch(String cacheName, String championName, Function<String, CompletableFuture<?>> fetch) {
+        String key = cacheName + ":" + championName;
+        if (queued.size() >= queueCapacity) {
+            logger.debug("u.gg fallback queue full, skipping {}", key);
+            return;
+        }
+        if (!queued.add(key)) {
+            return;
+        }
+        // The async getters store the result in the cache themselves
+        fetch.apply(championName).whenComplete((value, e) -> {
+            queued.remove(key);
+            if (e != null) {
+                logger.debug("u.gg fallback fetch failed for {}: {}", key, e.getMessage());
+            } else {
+                recommendationCache.uggDataChanged();
+            }
+        });
+    }
+
+    private class UggView implements MatchupView {
+        private final ChampionRegistry.Snapshot snapshot;
+        // Per-request memo so each champion's page is looked up and converted once
+        private final Map<Integer, Map<String, Double>> matchups = new ConcurrentHashMap<>();
+        private final Map<Integer, Map<String, Double>> synergies = new ConcurrentHashMap<>();
+
+        UggView(ChampionRegistry.Snapshot snapshot) {
+            this.snapshot = snapshot;
+        }
+
+        @Override
+        public ChampionRegistry.Snapshot snapshot() {
+            return snapshot;
+        }
+
+        @Override
+        public double matchupWinRate(int champion, int opponent) {
+            return lookup(matchups, champion, opponent, UggMatchupDataSource.this::cachedMatchups);
+        }
+
+        @Override
+        public double synergyWinRate(int champion, int ally) {
+            return lookup(synergies, champion, ally, UggMatchupDataSource.this::cachedSynergies);
+        }
+
+        private double lookup(Map<Integer, Map<String, Double>> memo, int champion, int other,
+                              Function<String, Map<String, Double>> load) {
+            Map<String, Double> data = memo.get(champion);
+            if (data == null) {
+                data = load.apply(snapshot.byIndex(champion).getName());
+                if (data == null) {
+                    return Double.NaN; // Miss; a fetch is queued
+                }
+                memo.put(champion, data);
+            }
+            Double winRate = data.get(ChampionRegistry.normalizeName(snapshot.byIndex(other).getName()));
+            return winRate != null ? winRate : Double.NaN;
+        }
+    }
+}
@@ -0,0 +1,270 @@
+package com.penta.service;
+
+import com.penta.config.RiotApiConfig;
+import com.penta.config.RiotWebClientRegistry;
+import com.penta.dto.UggPrefetchStatusDto;
+import com.penta.model.Champion;
+import com.penta.repository.ChampionStatsRepository;
+import com.penta.repository.RoleGames;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.ParameterizedTypeReference;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Background warm-up of the u.gg caches.
+ *
+ * A run scrapes the tier-list pages for every role, then the counter and synergy pages of every
+ * registered champion, most-played champions first (by local champion_stats games at
+ * recommendation.rank). Pages are fetched one at a time, at most ugg.prefetch.pages-per-minute,
+ * so interactive scrapes keep most of the u.gg budget. A run starts when the application is
+ * ready and again whenever the latest Data Dragon version (polled from /api/versions.json every
+ * ugg.prefetch.version-check-ms) changes; a new run replaces one still in progress. If the
+ * first poll fails, the startup run uses the configured ddragon.version. A run started while
+ * the champion registry was still empty (first deploy) is repeated once the registry loads.
+ */
+@Service
+public class UggPrefetchService {
+
+    private static final Logger logger = LoggerFactory.getLogger(UggPrefetchService.class);
+
+    // Role values of u.gg's tier-list page
+    private static final List<String> UGG_ROLES = List.of("top", "jungle", "mid", "adc", "support");
+
+    @Autowired
+    private UggDataService uggDataService;
+
+    @Autowired
+    private ChampionRegistry championRegistry;
+
+    @Autowired
+    private ChampionStatsRepository championStatsRepository;
+
+    @Autowired
+    private RecommendationCache recommendationCache;
+
+    @Autowired
+    private RiotWebClientRegistry webClients;
+
+    @Autowired
+    private RiotApiConfig riotApiConfig;
+
+    @Value("${ugg.prefetch.enabled:true}")
+    private boolean enabled;
+
+    @Value("${ugg.prefetch.pages-per-minute:20}")
+    private int pagesPerMinute;
+
+    @Value("${recommendation.rank:DIAMOND_PLUS}")
+    private String rank;
+
+    private record Page(String cacheName, String key) {
+    }
+
+    /**
+     * One warm-up pass; superseded runs stop at their next page
+     */
+    private static final class Run {
+        private final String version;
+        private final List<Page> pages;
+        private final AtomicInteger completed = new AtomicInteger();
+        private final AtomicInteger failed = new AtomicInteger();
+        private final LocalDateTime startedAt = LocalDateTime.now();
+        private volatile LocalDateTime finishedAt;
+        private volatile boolean cancelled;
+
+        Run(String version, List<Page> pages) {
+            this.version = version;
+            this.pages = pages;
+        }
+
+        boolean hasChampionPages() {
+            return pages.size() > UGG_ROLES.size();
+        }
+
+        boolean running() {
+            return finishedAt == null && !cancelled;
+        }
+    }
+
+    private ScheduledExecutorService scheduler;
+    private volatile Run current;
+    private volatile String warmedVersion;
+
+    @PostConstruct
+    public void initScheduler() {
+        scheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "ugg-prefetch");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        scheduler.shutdownNow();
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void onApplicationReady() {
+        checkVersion();
+    }
+
+    /**
+     * Warm the champion pages that the last run could not, because the registry was empty
+     */
+    @EventListener
+    public void onRegistryReloaded(ChampionRegistry.Reloaded event) {
+        Run run = current;
+        if (enabled && run != null && !run.hasChampionPages() && event.snapshot().size() > 0) {
+            start(run.version);
+        }
+    }
+
+    /**
+     * Start a run when the latest Data Dragon version differs from the version last warmed
+     */
+    @Scheduled(initialDelayString = "${ugg.prefetch.version-check-ms:300000}",
+            fixedDelayString = "${ugg.prefetch.version-check-ms:300000}")
+    public void checkVersion() {
+        if (!enabled) {
+            return;
+        }
+        String version = latestVersion();
+        if (version == null && warmedVersion == null) {
+            version = riotApiConfig.getDdragonVersion();
+        }
+        if (version == null || version.equals(warmedVersion)) {
+            return;
+        }
+        warmedVersion = version;
+        start(version);
+    }
+
+    /**
+     * Progress of the current or last run
+     */
+    public UggPrefetchStatusDto status() {
+        Run run = current;
+        if (run == null) {
+            return new UggPrefetchStatusDto(warmedVersion, false, 0, 0, 0, null, null);
+        }
+        return new UggPrefetchStatusDto(run.version, run.running(), run.pages.size(),
+                run.completed.get(), run.failed.get(), run.startedAt, run.finishedAt);
+    }
+
+    /**
+     * Newest version listed by Data Dragon, or null if it cannot be fetched
+     */
+    private String latestVersion() {
+        try {
+            List<String> versions = webClients.ddragon()
+                    .get()
+                    .uri("/api/versions.json")
+                    .retrieve()
+                    .bodyToMono(new ParameterizedTypeReference<List<String>>() {})
+                    .block(Duration.ofMillis(riotApiConfig.getTimeout()));
+            return versions != null && !versions.isEmpty() ? versions.get(0) : null;
+        } catch (Exception e) {
+            logger.warn("Could not fetch Data Dragon versions: {}", e.getMessage());
+            return null;
+        }
+    }
+
+    private synchronized void start(String version) {
+        Run previous = current;
+        if (previous != null) {
+            previous.cancelled = true;
+        }
+
+        Run run = new Run(version, pages());
+        current = run;
+        logger.info("Prefetching {} u.gg pages for version {}", run.pages.size(), version);
+        next(run, 0, 0);
+    }
+
+    /**
+     * Tier-list pages first, then champion pages by games played, most played first
+     */
+    private List<Page> pages() {
+        List<Page> pages = new ArrayList<>();
+        for (String role : UGG_ROLES) {
+            // One tier-list fetch fills the championStats view as well
+            pages.add(new Page("tierList", role));
+        }
+
+        Map<Integer, Long> games = new HashMap<>();
+        try {
+            for (RoleGames row : championStatsRepository.findRoleGamesByRank(rank)) {
+                games.merge(row.getChampionId(), row.getGames() != null ? row.getGames() : 0L, Long::sum);
+            }
+        } catch (Exception e) {
+            logger.warn("Could not load champion play counts, prefetching in registry order: {}", e.getMessage());
+        }
+
+        List<Champion> champions = new ArrayList<>(championRegistry.getAll());
+        champions.sort(Comparator.comparingLong((Champion champion) ->
+                games.getOrDefault(champion.getChampionId(), 0L)).reversed());
+        for (Champion champion : champions) {
+            pages.add(new Page("goodMatchups", champion.getName()));
+            pages.add(new Page("synergy", champion.getName()));
+        }
+        return pages;
+    }
+
+    private void next(Run run, int position, long delayMs) {
+        if (run.cancelled) {
+            return;
+        }
+        if (position >= run.pages.size()) {
+            run.finishedAt = LocalDateTime.now();
+            logger.info("u.gg prefetch for version {} finished: {} pages, {} failed",
+                    run.version, run.completed.get(), run.failed.get());
+            return;
+        }
+
+        long intervalMs = 60_000L / Math.max(1, pagesPerMinute);
+        try {
+            scheduler.schedule(() -> {
+                if (run.cancelled) {
+                    return;
+                }
+                long startedAt = System.currentTimeMillis();
+                Page page = run.pages.get(position);
+                uggDataService.prefetch(page.cacheName(), page.key()).whenComplete((success, e) -> {
+                    if (e == null && Boolean.TRUE.equals(success)) {
+                        run.completed.incrementAndGet();
+                        // Coalesced by the cache, so a run does not bump the version once per page
+                        recommendationCache.uggDataChanged();
+                    } else {
+                        run.failed.incrementAndGet();
+                    }
+                    // Next page no sooner than one interval after this one started
+                    next(run, position + 1, Math.max(0, intervalMs - (System.currentTimeMillis() - startedAt)));
+                });
+            }, delayMs, TimeUnit.MILLISECONDS);
+        } catch (RejectedExecutionException e) {
+            // Shutting down
+        }
+    }
+}
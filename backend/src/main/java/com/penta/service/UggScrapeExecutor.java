@@ -0,0 +1,177 @@
+package com.penta.service;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.jsoup.Jsoup;
+import org.jsoup.nodes.Document;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.net.URI;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Function;
+
+/**
+ * Asynchronous page fetches for the u.gg scraper.
+ *
+ * Requests to the same host are spaced at least ugg.scrape.min-interval-ms apart by reserving
+ * a start slot and scheduling the fetch for it, so no thread sleeps while waiting for its turn.
+ * The blocking Jsoup calls run on a small fetch pool (ugg.scrape.threads); failed fetches are
+ * retried with exponential backoff as delayed tasks, each retry taking a new slot.
+ */
+@Service
+public class UggScrapeExecutor {
+
+    private static final Logger logger = LoggerFactory.getLogger(UggScrapeExecutor.class);
+
+    // HTTP Headers Constants
+    private static final String USER_AGENT = "Mozilla/5.0 (Windows NT 10.0; Win64; x64) AppleWebKit/537.36 " +
+                                             "(KHTML, like Gecko) Chrome/120.0.0.0 Safari/537.36";
+    private static final String ACCEPT_HEADER = "text/html,application/xhtml+xml,application/xml";
+    private static final String ACCEPT_LANGUAGE = "en-US,en;q=0.9";
+
+    @Value("${ugg.timeout:5000}")
+    private int timeout;
+
+    @Value("${ugg.max-retries:3}")
+    private int maxRetries;
+
+    @Value("${ugg.scrape.min-interval-ms:1000}")
+    private long minIntervalMs;
+
+    @Value("${ugg.scrape.base-backoff-ms:1000}")
+    private long baseBackoffMs;
+
+    @Value("${ugg.scrape.threads:4}")
+    private int threads;
+
+    // Earliest start time (System.nanoTime) of the next request to each host
+    private final Map<String, AtomicLong> nextSlots = new ConcurrentHashMap<>();
+    private ScheduledExecutorService scheduler;
+    private ExecutorService fetchPool;
+
+    @PostConstruct
+    public void initExecutors() {
+        scheduler = Executors.newSingleThreadScheduledExecutor(daemonThreads("ugg-scrape-scheduler"));
+        fetchPool = Executors.newFixedThreadPool(threads, daemonThreads("ugg-scrape"));
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        scheduler.shutdownNow();
+        fetchPool.shutdownNow();
+    }
+
+    /**
+     * Fetch a page and parse it off the caller's thread. Completes exceptionally with an
+     * IOException once every attempt has failed.
+     */
+    public <T> CompletableFuture<T> scrape(String url, Function<Document, T> parser, String operationName) {
+        CompletableFuture<T> result = new CompletableFuture<>();
+        schedule(url, parser, operationName, 1, result);
+        return result;
+    }
+
+    private <T> void schedule(String url, Function<Document, T> parser, String operationName,
+                              int attempt, CompletableFuture<T> result) {
+        long delayNanos = reserveSlot(host(url)) - System.nanoTime();
+        runLater(() -> submitFetch(url, parser, operationName, attempt, result), delayNanos, operationName, result);
+    }
+
+    private <T> void submitFetch(String url, Function<Document, T> parser, String operationName,
+                                 int attempt, CompletableFuture<T> result) {
+        try {
+            fetchPool.execute(() -> fetch(url, parser, operationName, attempt, result));
+        } catch (RejectedExecutionException e) {
+            result.completeExceptionally(new IOException("Scraper shut down before " + operationName, e));
+        }
+    }
+
+    private <T> void fetch(String url, Function<Document, T> parser, String operationName,
+                           int attempt, CompletableFuture<T> result) {
+        Document doc;
+        try {
+            doc = Jsoup.connect(url)
+                    .userAgent(USER_AGENT)
+                    .header("Accept", ACCEPT_HEADER)
+                    .header("Accept-Language", ACCEPT_LANGUAGE)
+                    .header("Cache-Control", "no-cache")
+                    .timeout(timeout)
+                    .followRedirects(true)
+                    .maxBodySize(0)
+                    .get();
+        } catch (IOException e) {
+            logger.error("Failed to fetch {}: {}", url, e.getMessage());
+            if (attempt >= maxRetries) {
+                result.completeExceptionally(
+                        new IOException("Failed after " + maxRetries + " retries for " + operationName, e));
+                return;
+            }
+            // Back off first, then queue for a new slot like any other request
+            long backoffMs = (long) Math.pow(2, attempt) * baseBackoffMs;
+            runLater(() -> schedule(url, parser, operationName, attempt + 1, result),
+                    TimeUnit.MILLISECONDS.toNanos(backoffMs), operationName, result);
+            return;
+        }
+
+        try {
+            result.complete(parser.apply(doc));
+        } catch (RuntimeException e) {
+            result.completeExceptionally(e);
+        }
+    }
+
+    private void runLater(Runnable task, long delayNanos, String operationName, CompletableFuture<?> result) {
+        try {
+            scheduler.schedule(task, Math.max(0, delayNanos), TimeUnit.NANOSECONDS);
+        } catch (RejectedExecutionException e) {
+            result.completeExceptionally(new IOException("Scraper shut down before " + operationName, e));
+        }
+    }
+
+    /**
+     * Claim the next free start time (System.nanoTime) for a host
+     */
+    private long reserveSlot(String host) {
+        long interval = TimeUnit.MILLISECONDS.toNanos(minIntervalMs);
+        AtomicLong nextSlot = nextSlots.computeIfAbsent(host, h -> new AtomicLong(System.nanoTime()));
+        while (true) {
+            long current = nextSlot.get();
+            long start = Math.max(current, System.nanoTime());
+            if (nextSlot.compareAndSet(current, start + interval)) {
+                return start;
+            }
+        }
+    }
+
+    private static String host(String url) {
+        try {
+            String host = URI.create(url).getHost();
+            return host != null ? host : url;
+        } catch (IllegalArgumentException e) {
+            return url;
+        }
+    }
+
+    private static ThreadFactory daemonThreads(String prefix) {
+        AtomicInteger count = new AtomicInteger();
+        return runnable -> {
+            Thread thread = new Thread(runnable, prefix + "-" + count.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        };
+    }
+}
@@ -0,0 +1,85 @@
+package com.penta.service;
+
+import com.penta.model.Champion;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static com.penta.service.TestChampions.champions;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.within;
+
+class DraftScoreStateTest {
+
+    /**
+     * Every matchup and synergy is 60% for champion 0 and 40% for the rest
+     */
+    private static DraftScoreState state(List<Champion> candidates) {
+        ChampionRegistry.Snapshot snapshot = ChampionRegistry.Snapshot.of(candidates);
+        MatchupDataSource.MatchupView view = new MatchupDataSource.MatchupView() {
+            @Override
+            public ChampionRegistry.Snapshot snapshot() {
+                return snapshot;
+            }
+
+            @Override
+            public double matchupWinRate(int champion, int opponent) {
+                return champion == 0 ? 60.0 : 40.0;
+            }
+
+            @Override
+            public double synergyWinRate(int champion, int ally) {
+                return champion == 0 ? 60.0 : 40.0;
+            }
+        };
+        return new DraftScoreState(candidates, new double[candidates.size()], view);
+    }
+
+    @Test
+    void picksAreExcludedAndScored() {
+        DraftScoreState state = state(champions(4));
+
+        assertThat(state.addAlly(1)).isTrue();
+        assertThat(state.addEnemy(2)).isTrue();
+
+        assertThat(state.scores().synergy(0)).isCloseTo(0.6, within(1e-9));
+        assertThat(state.scores().matchup(0)).isCloseTo(0.6, within(1e-9));
+        assertThat(state.scores().top(4)).containsExactly(0, 3);
+    }
+
+    @Test
+    void repeatedEventsAreIgnored() {
+        DraftScoreState state = state(champions(4));
+        state.addAlly(1);
+        state.addEnemy(2);
+        double synergy = state.scores().synergy(3);
+        double matchup = state.scores().matchup(3);
+
+        assertThat(state.addAlly(1)).isFalse();
+        assertThat(state.addEnemy(1)).isFalse();
+        assertThat(state.addEnemy(2)).isFalse();
+        assertThat(state.ban(2)).isFalse();
+
+        assertThat(state.scores().synergy(3)).isEqualTo(synergy);
+        assertThat(state.scores().matchup(3)).isEqualTo(matchup);
+    }
+
+    @Test
+    void bannedChampionsCannotBePicked() {
+        DraftScoreState state = state(champions(3));
+
+        assertThat(state.ban(1)).isTrue();
+        assertThat(state.addAlly(1)).isFalse();
+
+        assertThat(state.scores().synergy(0)).isEqualTo(RecommendationScorer.NEUTRAL);
+        assertThat(state.scores().top(3)).containsExactly(0, 2);
+    }
+
+    @Test
+    void unknownIndexesAreIgnored() {
+        DraftScoreState state = state(champions(2));
+
+        assertThat(state.addAlly(-1)).isFalse();
+        assertThat(state.addEnemy(5)).isFalse();
+    }
+}
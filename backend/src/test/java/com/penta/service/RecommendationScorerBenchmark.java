@@ -0,0 +1,335 @@
+package com.penta.service;
+
+import com.penta.dto.ChampionRecommendationDto;
+import com.penta.dto.CounterData;
+import com.penta.model.Champion;
+import com.penta.model.Player;
+import com.penta.model.PlayerChampion;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+/**
+ * Per-request cost of scoring one role's candidates: the scoring code as it was before
+ * RecommendationScorer (a DTO, a reason string and, for the matchup factor, a HashMap built
+ * from the cached CounterData list for every candidate, then a full sort), against
+ * RecommendationScorer.score plus top(k), which builds DTOs for the winners only. Both sides
+ * read the same win rates; the legacy side gets them from a UggDataService stub that returns
+ * cached values as the @Cacheable proxy would. Compare gc.alloc.rate.norm (bytes per call).
+ *
+ * Run with the GC profiler after mvn test-compile:
+ * java -cp target/test-classes:target/classes:$(mvn -q dependency:build-classpath -Dmdep.outputFile=/dev/stdout)
+ *      org.openjdk.jmh.Main RecommendationScorerBenchmark -prof gc
+ * or through main(), which adds the profiler itself.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class RecommendationScorerBenchmark {
+
+    private static final int CHAMPIONS = 170;
+    private static final int RECENT_CHAMPIONS = 20;
+    private static final int TOP = 10;
+
+    private final ChampionRecommendationService service = new ChampionRecommendationService();
+
+    private List<Champion> candidates;
+    private Player player;
+    private UggDataService uggDataService;
+    private List<String> teamChampions;
+    private List<String> opponentChampions;
+
+    private double[] comfortByIndex;
+    private MatchupDataSource.MatchupView view;
+    private int[] allies;
+    private int[] opponents;
+
+    /**
+     * Cached u.gg pages by champion name, served without scraping
+     */
+    private static final class CachedUggDataService extends UggDataService {
+        private final Map<String, Optional<List<CounterData>>> matchups;
+        private final Map<String, Optional<Map<String, Double>>> synergies;
+
+        CachedUggDataService(Map<String, Optional<List<CounterData>>> matchups,
+                             Map<String, Optional<Map<String, Double>>> synergies) {
+            this.matchups = matchups;
+            this.synergies = synergies;
+        }
+
+        @Override
+        public Optional<List<CounterData>> getGoodMatchups(String championName) {
+            return matchups.getOrDefault(championName, Optional.empty());
+        }
+
+        @Override
+        public Optional<Map<String, Double>> getChampionSynergy(String championName) {
+            return synergies.getOrDefault(championName, Optional.empty());
+        }
+    }
+
+    @Setup
+    public void setUp() {
+        Random random = new Random(42);
+        candidates = new ArrayList<>();
+        for (int i = 0; i < CHAMPIONS; i++) {
+            Champion champion = new Champion();
+            champion.setId((long) i + 1);
+            champion.setChampionId(i + 1);
+            champion.setName("Champion" + i);
+            champion.setTitle("the Benchmarked");
+            champion.setRole("TOP");
+            champion.setLane("TOP");
+            champion.setTier(1 + random.nextInt(5));
+            candidates.add(champion);
+        }
+        ChampionRegistry.Snapshot snapshot = ChampionRegistry.Snapshot.of(candidates);
+
+        List<PlayerChampion> recentChampions = new ArrayList<>();
+        for (int i = 0; i < RECENT_CHAMPIONS; i++) {
+            PlayerChampion playerChampion = new PlayerChampion();
+            playerChampion.setChampion(candidates.get(random.nextInt(CHAMPIONS)));
+            playerChampion.setGamesPlayed(random.nextInt(100));
+            playerChampion.setWinRate(40 + random.nextDouble() * 20);
+            playerChampion.setMasteryLevel(1 + random.nextInt(7));
+            recentChampions.add(playerChampion);
+        }
+        player = new Player();
+        player.setRecentChampions(recentChampions);
+        comfortByIndex = new double[snapshot.size()];
+        for (int i = 0; i < comfortByIndex.length; i++) {
+            comfortByIndex[i] = calculatePlayerComfort(snapshot.byIndex(i), player);
+        }
+
+        // One set of win rates with some unknown pairs, as u.gg pages for the legacy path and dense tables for the scorer
+        double[] matchups = new double[CHAMPIONS * CHAMPIONS];
+        double[] synergies = new double[CHAMPIONS * CHAMPIONS];
+        Map<String, Optional<List<CounterData>>> matchupPages = new HashMap<>();
+        Map<String, Optional<Map<String, Double>>> synergyPages = new HashMap<>();
+        for (int i = 0; i < CHAMPIONS; i++) {
+            List<CounterData> counters = new ArrayList<>();
+            Map<String, Double> synergy = new HashMap<>();
+            for (int j = 0; j < CHAMPIONS; j++) {
+                int cell = i * CHAMPIONS + j;
+                matchups[cell] = random.nextInt(10) == 0 ? Double.NaN : 40 + random.nextDouble() * 20;
+                synergies[cell] = random.nextInt(10) == 0 ? Double.NaN : 40 + random.nextDouble() * 20;
+                String other = candidates.get(j).getName();
+                if (!Double.isNaN(matchups[cell])) {
+                    counters.add(new CounterData(other, matchups[cell], 100 + random.nextInt(1000)));
+                }
+                if (!Double.isNaN(synergies[cell])) {
+                    synergy.put(other, synergies[cell]);
+                }
+            }
+            matchupPages.put(candidates.get(i).getName(), Optional.of(counters));
+            synergyPages.put(candidates.get(i).getName(), Optional.of(synergy));
+        }
+        uggDataService = new CachedUggDataService(matchupPages, synergyPages);
+        view = new MatchupDataSource.MatchupView() {
+            @Override
+            public ChampionRegistry.Snapshot snapshot() {
+                return snapshot;
+            }
+
+            @Override
+            public double matchupWinRate(int champion, int opponent) {
+                return matchups[champion * CHAMPIONS + opponent];
+            }
+
+            @Override
+            public double synergyWinRate(int champion, int ally) {
+                return synergies[champion * CHAMPIONS + ally];
+            }
+        };
+
+        allies = new int[] { 3, 57, 101, 140 };
+        opponents = new int[] { 8, 64, 99, 120, 160 };
+        teamChampions = names(allies);
+        opponentChampions = names(opponents);
+    }
+
+    @Benchmark
+    public List<ChampionRecommendationDto> perCandidateDtos() {
+        return candidates.stream()
+                .map(champion -> calculateRecommendation(champion, player, teamChampions, opponentChampions))
+                .sorted((a, b) -> Double.compare(b.getRecommendationScore(), a.getRecommendationScore()))
+                .limit(TOP)
+                .collect(Collectors.toList());
+    }
+
+    @Benchmark
+    public List<ChampionRecommendationDto> scorerTopK() {
+        RecommendationScorer.Scores scores = RecommendationScorer.score(candidates, comfortByIndex, view, allies, opponents);
+        List<ChampionRecommendationDto> recommendations = new ArrayList<>(TOP);
+        for (int candidate : scores.top(TOP)) {
+            ChampionRecommendationDto recommendation = new ChampionRecommendationDto();
+            recommendation.setChampion(service.convertToDto(scores.champion(candidate)));
+            recommendation.setRecommendationScore(scores.total(candidate));
+            recommendation.setReason(ChampionRecommendationService.generateRecommendationReason(scores.comfort(candidate),
+                    scores.synergy(candidate), scores.matchup(candidate), scores.meta(candidate)));
+            recommendations.add(recommendation);
+        }
+        return recommendations;
+    }
+
+    private List<String> names(int[] indexes) {
+        List<String> names = new ArrayList<>();
+        for (int index : indexes) {
+            names.add(candidates.get(index).getName());
+        }
+        return names;
+    }
+
+    // The scoring path as it was before RecommendationScorer, reading u.gg pages per candidate
+
+    private ChampionRecommendationDto calculateRecommendation(
+            Champion champion,
+            Player player,
+            List<String> teamChampions,
+            List<String> opponentChampions) {
+
+        ChampionRecommendationDto recommendation = new ChampionRecommendationDto();
+        recommendation.setChampion(service.convertToDto(champion));
+
+        double playerComfortScore = calculatePlayerComfort(champion, player);
+        double teamSynergyScore = calculateTeamSynergy(champion, teamChampions);
+        double opponentMatchupScore = calculateOpponentMatchup(champion, opponentChampions);
+        double metaScore = calculateMetaScore(champion);
+
+        double finalScore = (playerComfortScore * 0.4) +
+                           (teamSynergyScore * 0.3) +
+                           (opponentMatchupScore * 0.2) +
+                           (metaScore * 0.1);
+
+        recommendation.setRecommendationScore(finalScore);
+        recommendation.setReason(ChampionRecommendationService.generateRecommendationReason(
+                playerComfortScore, teamSynergyScore, opponentMatchupScore, metaScore));
+
+        return recommendation;
+    }
+
+    private static double calculatePlayerComfort(Champion champion, Player player) {
+        if (player.getRecentChampions() == null) {
+            return 0.5;
+        }
+
+        Optional<PlayerChampion> playerChampionOpt = player.getRecentChampions().stream()
+                .filter(pc -> pc.getChampion().getChampionId().equals(champion.getChampionId()))
+                .findFirst();
+
+        if (playerChampionOpt.isEmpty()) {
+            return 0.3;
+        }
+
+        PlayerChampion playerChampion = playerChampionOpt.get();
+        double gamesWeight = Math.min(playerChampion.getGamesPlayed() / 50.0, 1.0);
+        double winRateWeight = playerChampion.getWinRate() / 100.0;
+        double masteryWeight = Math.min(playerChampion.getMasteryLevel() / 7.0, 1.0);
+
+        return (gamesWeight * 0.4) + (winRateWeight * 0.4) + (masteryWeight * 0.2);
+    }
+
+    private double calculateTeamSynergy(Champion champion, List<String> teamChampions) {
+        if (teamChampions == null || teamChampions.isEmpty()) {
+            return 0.5;
+        }
+
+        Optional<Map<String, Double>> synergyDataOpt = uggDataService.getChampionSynergy(champion.getName());
+
+        if (synergyDataOpt.isEmpty()) {
+            return 0.5;
+        }
+
+        Map<String, Double> synergyData = synergyDataOpt.get();
+        double totalSynergy = 0.0;
+        int validChampions = 0;
+
+        for (String teamChampion : teamChampions) {
+            if (synergyData.containsKey(teamChampion)) {
+                totalSynergy += synergyData.get(teamChampion);
+                validChampions++;
+            }
+        }
+
+        if (validChampions == 0) {
+            return 0.5;
+        }
+
+        return (totalSynergy / validChampions) / 100.0;
+    }
+
+    private double calculateOpponentMatchup(Champion champion, List<String> opponentChampions) {
+        if (opponentChampions == null || opponentChampions.isEmpty()) {
+            return 0.5;
+        }
+
+        Optional<List<CounterData>> matchupDataOpt = uggDataService.getGoodMatchups(champion.getName());
+
+        if (matchupDataOpt.isEmpty()) {
+            return 0.5;
+        }
+
+        List<CounterData> matchupData = matchupDataOpt.get();
+
+        // The per-candidate map the scorer no longer builds
+        Map<String, Double> matchupMap = matchupData.stream()
+                .collect(Collectors.toMap(
+                    CounterData::getChampionName,
+                    CounterData::getWinRate,
+                    (existing, replacement) -> existing
+                ));
+
+        double totalMatchup = 0.0;
+        int validChampions = 0;
+
+        for (String opponentChampion : opponentChampions) {
+            if (matchupMap.containsKey(opponentChampion)) {
+                totalMatchup += matchupMap.get(opponentChampion);
+                validChampions++;
+            }
+        }
+
+        if (validChampions == 0) {
+            return 0.5;
+        }
+
+        return (totalMatchup / validChampions) / 100.0;
+    }
+
+    private static double calculateMetaScore(Champion champion) {
+        if (champion.getTier() == null) {
+            return 0.5;
+        }
+        return champion.getTier() / 5.0;
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder()
+                .include(RecommendationScorerBenchmark.class.getSimpleName())
+                .addProfiler(GCProfiler.class)
+                .build()).run();
+    }
+}
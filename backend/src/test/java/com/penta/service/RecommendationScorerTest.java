@@ -0,0 +1,97 @@
+package com.penta.service;
+
+import com.penta.model.Champion;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static com.penta.service.TestChampions.champions;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.within;
+
+class RecommendationScorerTest {
+
+    /**
+     * Scores whose totals equal the given values (comfort carries the whole score)
+     */
+    private static RecommendationScorer.Scores scores(double... totals) {
+        RecommendationScorer.Scores scores = new RecommendationScorer.Scores(champions(totals.length));
+        for (int i = 0; i < totals.length; i++) {
+            scores.set(i, totals[i] / RecommendationScorer.COMFORT_WEIGHT, 0, 0, 0);
+        }
+        return scores;
+    }
+
+    @Test
+    void topReturnsBestFirst() {
+        RecommendationScorer.Scores scores = scores(0.2, 0.9, 0.5, 0.7, 0.1);
+
+        assertThat(scores.top(3)).containsExactly(1, 3, 2);
+    }
+
+    @Test
+    void tiesKeepCandidateOrder() {
+        RecommendationScorer.Scores scores = scores(0.5, 0.8, 0.5, 0.8, 0.5);
+
+        assertThat(scores.top(4)).containsExactly(1, 3, 0, 2);
+    }
+
+    @Test
+    void excludedCandidatesAreSkipped() {
+        RecommendationScorer.Scores scores = scores(0.2, 0.9, 0.5, 0.7, 0.1);
+        scores.exclude(1);
+        scores.exclude(2);
+
+        assertThat(scores.top(3)).containsExactly(3, 0, 4);
+    }
+
+    @Test
+    void topIsLimitedByTheCandidatesLeft() {
+        RecommendationScorer.Scores scores = scores(0.2, 0.9, 0.5);
+        scores.exclude(0);
+
+        assertThat(scores.top(10)).containsExactly(1, 2);
+        assertThat(scores.top(0)).isEmpty();
+        assertThat(scores(new double[0]).top(10)).isEmpty();
+    }
+
+    @Test
+    void totalIsTheWeightedSumOfFactors() {
+        RecommendationScorer.Scores scores = new RecommendationScorer.Scores(champions(1));
+        scores.set(0, 1.0, 0.5, 0.25, 0.8);
+
+        assertThat(scores.total(0)).isCloseTo(0.4 + 0.15 + 0.05 + 0.08, within(1e-9));
+    }
+
+    @Test
+    void scoreFallsBackToNeutralWithoutData() {
+        List<Champion> candidates = champions(2);
+        ChampionRegistry.Snapshot snapshot = ChampionRegistry.Snapshot.of(candidates);
+        MatchupDataSource.MatchupView view = new MatchupDataSource.MatchupView() {
+            @Override
+            public ChampionRegistry.Snapshot snapshot() {
+                return snapshot;
+            }
+
+            @Override
+            public double matchupWinRate(int champion, int opponent) {
+                return champion == 0 ? 60.0 : Double.NaN;
+            }
+
+            @Override
+            public double synergyWinRate(int champion, int ally) {
+                return Double.NaN;
+            }
+        };
+
+        RecommendationScorer.Scores scores = RecommendationScorer.score(candidates, new double[] { 0.9, 0.1 },
+                view, new int[] { 1 }, new int[] { 1 });
+
+        assertThat(scores.matchup(0)).isEqualTo(0.6);
+        assertThat(scores.matchup(1)).isEqualTo(RecommendationScorer.NEUTRAL);
+        assertThat(scores.synergy(0)).isEqualTo(RecommendationScorer.NEUTRAL);
+        assertThat(scores.comfort(0)).isEqualTo(0.9);
+        assertThat(scores.meta(0)).isEqualTo(RecommendationScorer.NEUTRAL);
+        assertThat(scores.top(1)).containsExactly(0);
+    }
+}
@@ -0,0 +1,106 @@
+package com.penta.service;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpHeaders;
+
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class RiotRateLimiterTest {
+
+    private static final long SECOND = TimeUnit.SECONDS.toNanos(1);
+
+    @Test
+    void earliestSlotIsImmediateWhileTheWindowHasRoom() {
+        RiotRateLimiter.Bucket bucket = new RiotRateLimiter.Bucket("2:1", new int[] { 2 }, new long[] { 1 }, null, 0);
+
+        assertThat(bucket.earliestSlot(0)).isEqualTo(0);
+        bucket.book(0);
+        assertThat(bucket.earliestSlot(0)).isEqualTo(0);
+    }
+
+    @Test
+    void fullWindowPushesTheSlotToTheWindowEnd() {
+        RiotRateLimiter.Bucket bucket = new RiotRateLimiter.Bucket("2:1", new int[] { 2 }, new long[] { 1 }, null, 0);
+        bucket.book(0);
+        bucket.book(0);
+
+        assertThat(bucket.earliestSlot(0)).isEqualTo(SECOND);
+    }
+
+    @Test
+    void bookingInAFutureWindowStartsThatWindow() {
+        RiotRateLimiter.Bucket bucket = new RiotRateLimiter.Bucket("1:1", new int[] { 1 }, new long[] { 1 }, null, 0);
+        bucket.book(0);
+        bucket.book(bucket.earliestSlot(0));
+
+        assertThat(bucket.earliestSlot(0)).isEqualTo(2 * SECOND);
+    }
+
+    @Test
+    void everyWindowMustHaveRoom() {
+        RiotRateLimiter.Bucket bucket = new RiotRateLimiter.Bucket("5:1,1:10", new int[] { 5, 1 }, new long[] { 1, 10 }, null, 0);
+        bucket.book(0);
+
+        assertThat(bucket.earliestSlot(0)).isEqualTo(10 * SECOND);
+    }
+
+    @Test
+    void parseSeedsUsageFromTheCountHeader() {
+        RiotRateLimiter.Bucket bucket = RiotRateLimiter.Bucket.parse("20:1,100:120", "20:1,3:120", null, 0);
+
+        assertThat(bucket.earliestSlot(0)).isEqualTo(SECOND);
+    }
+
+    @Test
+    void resizingKeepsSlotsBookedInFutureWindows() {
+        long now = System.nanoTime();
+        RiotRateLimiter.HostLimits limits = new RiotRateLimiter.HostLimits(new int[] { 2 }, new long[] { 1 });
+        limits.reserve("match", now);
+        limits.reserve("match", now);
+        // Queued into the next window
+        assertThat(limits.reserve("match", now)).isGreaterThan(0);
+
+        HttpHeaders headers = new HttpHeaders();
+        headers.add("X-App-Rate-Limit", "3:1");
+        headers.add("X-App-Rate-Limit-Count", "2:1");
+        limits.update("match", headers, now);
+
+        // The next window already holds one booking; two more fit, the third must wait another window
+        long second = limits.reserve("match", now);
+        long third = limits.reserve("match", now);
+        long fourth = limits.reserve("match", now);
+        assertThat(second).isGreaterThan(0);
+        assertThat(third).isEqualTo(second);
+        assertThat(fourth).isGreaterThanOrEqualTo(second + SECOND);
+    }
+
+    @Test
+    void newWindowLengthStartsBehindTheLastBookedSlot() {
+        long now = System.nanoTime();
+        RiotRateLimiter.HostLimits limits = new RiotRateLimiter.HostLimits(new int[] { 1 }, new long[] { 1 });
+        limits.reserve("match", now);
+        long queued = limits.reserve("match", now);
+        assertThat(queued).isGreaterThan(0);
+
+        HttpHeaders headers = new HttpHeaders();
+        headers.add("X-App-Rate-Limit", "1:10");
+        limits.update("match", headers, now);
+
+        assertThat(limits.reserve("match", now)).isGreaterThanOrEqualTo(queued + 10 * SECOND);
+    }
+
+    @Test
+    void malformedHeadersKeepTheCurrentLimits() {
+        long now = System.nanoTime();
+        RiotRateLimiter.HostLimits limits = new RiotRateLimiter.HostLimits(new int[] { 1 }, new long[] { 1 });
+        limits.reserve("match", now);
+
+        HttpHeaders headers = new HttpHeaders();
+        headers.add("X-App-Rate-Limit", "garbage");
+        limits.update("match", headers, now);
+
+        assertThat(limits.reserve("match", now)).isGreaterThan(0);
+    }
+}
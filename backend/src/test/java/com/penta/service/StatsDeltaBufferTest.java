@@ -0,0 +1,81 @@
+package com.penta.service;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class StatsDeltaBufferTest {
+
+    private static final StatsDeltaBuffer.Key KEY =
+            new StatsDeltaBuffer.Key(StatsDeltaBuffer.Kind.CHAMPION, 1, 0, "15.23", "DIAMOND_PLUS", "TOP");
+
+    private final List<StatsDeltaBuffer.Batch> written = new ArrayList<>();
+    private boolean failing;
+
+    private StatsDeltaBuffer buffer(int flushThreshold, int maxAttempts) {
+        return new StatsDeltaBuffer(flushThreshold, 100, maxAttempts, batch -> {
+            if (failing) {
+                throw new IllegalStateException("database down");
+            }
+            written.add(batch);
+        });
+    }
+
+    private static void record(StatsDeltaBuffer buffer, String matchId) {
+        StatsDeltaBuffer.Contribution contribution =
+                new StatsDeltaBuffer.Contribution(matchId, StatsDeltaBuffer.Kind.CHAMPION, "15.23");
+        assertThat(buffer.claim(contribution)).isTrue();
+        Map<StatsDeltaBuffer.Key, StatsDeltaBuffer.Delta> deltas = new HashMap<>();
+        deltas.put(KEY, StatsDeltaBuffer.Delta.result(true));
+        buffer.record(List.of(contribution), deltas);
+    }
+
+    @Test
+    void recordKeepsDeltasWhenItsFlushFails() {
+        StatsDeltaBuffer buffer = buffer(1, 3);
+        failing = true;
+
+        record(buffer, "NA1_1");
+
+        assertThat(buffer.size()).isEqualTo(1);
+        failing = false;
+        assertThat(buffer.flush()).isEqualTo(1);
+        assertThat(written).hasSize(1);
+        assertThat(written.get(0).deltas().get(KEY).getGames()).isEqualTo(1);
+    }
+
+    @Test
+    void failedBatchIsRetriedAheadOfNewerDeltas() {
+        StatsDeltaBuffer buffer = buffer(10, 3);
+        record(buffer, "NA1_1");
+        failing = true;
+        assertThatThrownBy(buffer::flush).isInstanceOf(IllegalStateException.class);
+
+        record(buffer, "NA1_2");
+        failing = false;
+        assertThat(buffer.flush()).isEqualTo(2);
+
+        assertThat(written).hasSize(2);
+        assertThat(written.get(0).contributions()).extracting(StatsDeltaBuffer.Contribution::matchId).containsExactly("NA1_1");
+        assertThat(written.get(1).contributions()).extracting(StatsDeltaBuffer.Contribution::matchId).containsExactly("NA1_2");
+    }
+
+    @Test
+    void poisonBatchIsDroppedAndReleasedAfterMaxAttempts() {
+        StatsDeltaBuffer buffer = buffer(10, 2);
+        record(buffer, "NA1_1");
+        failing = true;
+        assertThatThrownBy(buffer::flush).isInstanceOf(IllegalStateException.class);
+        assertThatThrownBy(buffer::flush).isInstanceOf(IllegalStateException.class);
+
+        assertThat(buffer.size()).isZero();
+        // The match can be claimed again and aggregated later
+        assertThat(buffer.claim(new StatsDeltaBuffer.Contribution("NA1_1", StatsDeltaBuffer.Kind.CHAMPION, "15.23"))).isTrue();
+    }
+}
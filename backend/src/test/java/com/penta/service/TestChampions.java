@@ -0,0 +1,29 @@
+package com.penta.service;
+
+import com.penta.model.Champion;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Champion fixtures shared by the service tests
+ */
+final class TestChampions {
+
+    private TestChampions() {
+    }
+
+    /**
+     * n champions with championIds 1..n and names Champion0..Champion(n-1)
+     */
+    static List<Champion> champions(int n) {
+        List<Champion> champions = new ArrayList<>();
+        for (int i = 0; i < n; i++) {
+            Champion champion = new Champion();
+            champion.setChampionId(i + 1);
+            champion.setName("Champion" + i);
+            champions.add(champion);
+        }
+        return champions;
+    }
+}